@@ -0,0 +1,77 @@
+package core;
+
+import agent.Action;
+import search.framework.problem.BidirectionalProblem;
+import search.framework.problem.GeneralProblem;
+import search.framework.problem.GoalTest;
+import search.framework.problem.Problem;
+
+import java.util.List;
+
+public class BidirectionalPuzzle implements BidirectionalProblem<State, Action> {
+
+    /**
+     * Problem searched from the initial state towards the solution
+     */
+    private final Problem<State, Action> originalProblem;
+
+    /**
+     * Problem searched from the solution back towards the initial state. Every move is undone by the opposite move,
+     * so reversed moves are the same set of moves
+     */
+    private final Problem<State, Action> reverseProblem;
+
+    /**
+     * Initializes both problems
+     * @param initialState Initial state
+     */
+    BidirectionalPuzzle(State initialState) {
+        State goalState = getGoalState(initialState);
+        originalProblem = new GeneralProblem<>(initialState, Puzzle::getPossibleActions, Puzzle::getResult, Puzzle::testGoal);
+        reverseProblem = new GeneralProblem<>(goalState, Puzzle::getPossibleActions, Puzzle::getResult, GoalTest.forState(initialState));
+    }
+
+    /**
+     * Returns the state which solves the puzzle
+     * @param state Any state of the puzzle
+     * @return Goal state
+     */
+    static State getGoalState(State state) {
+        return new State(state.getSolution());
+    }
+
+    @Override
+    public Problem<State, Action> getOriginalProblem() {
+        return originalProblem;
+    }
+
+    @Override
+    public Problem<State, Action> getReverseProblem() {
+        return reverseProblem;
+    }
+
+    @Override
+    public State getInitialState() {
+        return originalProblem.getInitialState();
+    }
+
+    @Override
+    public List<Action> getActions(State state) {
+        return originalProblem.getActions(state);
+    }
+
+    @Override
+    public State getResult(State state, Action action) {
+        return originalProblem.getResult(state, action);
+    }
+
+    @Override
+    public boolean testGoal(State state) {
+        return originalProblem.testGoal(state);
+    }
+
+    @Override
+    public double getStepCosts(State state, Action action, State stateDelta) {
+        return originalProblem.getStepCosts(state, action, stateDelta);
+    }
+}
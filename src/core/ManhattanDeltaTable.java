@@ -0,0 +1,145 @@
+package core;
+
+import agent.Action;
+import agent.impl.DynamicAction;
+import search.framework.Node;
+import search.informed.OperatorSelectionFunction;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+public class ManhattanDeltaTable implements ToDoubleFunction<Node<State, Action>>, OperatorSelectionFunction<State, Action> {
+
+    /**
+     * Shared actions, indexed like the moves of the packed puzzle
+     */
+    private static final Action[] ACTIONS = new Action[PackedPuzzle.MOVES.length];
+
+    static {
+        for (int move = 0; move < ACTIONS.length; move++)
+            ACTIONS[move] = new DynamicAction(PackedPuzzle.MOVES[move]);
+    }
+
+    /**
+     * Matrix size
+     */
+    private final int size;
+
+    /**
+     * Target cell of each tile
+     */
+    private final int[] targetCell;
+
+    /**
+     * Cell reached by the free cell for each cell and move (-1 if not possible)
+     */
+    private final int[][] neighbour;
+
+    /**
+     * Change of f (step cost plus change of distance) indexed by tile, free cell and move
+     */
+    private final double[][][] deltaF;
+
+    /**
+     * Initializes the tables. Unlike the manhattan distance of the puzzle, the free cell is not counted, which keeps
+     * the heuristic consistent
+     * @param target Target matrix
+     */
+    public ManhattanDeltaTable(int[][] target) {
+        int cells = target.length * target.length;
+        size = target.length;
+        targetCell = new int[cells];
+        neighbour = new int[cells][PackedPuzzle.MOVES.length];
+        deltaF = new double[cells][cells][PackedPuzzle.MOVES.length];
+
+        for (int cell = 0; cell < cells; cell++)
+            targetCell[target[cell / size][cell % size]] = cell;
+
+        for (int cell = 0; cell < cells; cell++) {
+            int row = cell / size;
+            int column = cell % size;
+            neighbour[cell][0] = column != 0 ? cell - 1 : -1;
+            neighbour[cell][1] = column != size - 1 ? cell + 1 : -1;
+            neighbour[cell][2] = row != 0 ? cell - size : -1;
+            neighbour[cell][3] = row != size - 1 ? cell + size : -1;
+        }
+
+        // The tile next to the free cell moves into the free cell
+        for (int tile = 1; tile < cells; tile++) {
+            for (int freeCell = 0; freeCell < cells; freeCell++) {
+                for (int move = 0; move < PackedPuzzle.MOVES.length; move++) {
+                    int tileCell = neighbour[freeCell][move];
+                    if (tileCell != -1)
+                        deltaF[tile][freeCell][move] = 1 + getDistance(tile, freeCell) - getDistance(tile, tileCell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sum of the manhattan distances of all tiles, ignoring the free cell
+     * @param node Node to be evaluated
+     * @return Heuristic value
+     */
+    @Override
+    public double applyAsDouble(Node<State, Action> node) {
+        int[][] matrix = node.getState().getMatrix();
+        double result = 0;
+
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                if (matrix[row][column] != 0)
+                    result += getDistance(matrix[row][column], row * size + column);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public double selectActions(State state, double requestedDeltaF, List<Action> result) {
+        int[][] matrix = state.getMatrix();
+        int freeCell = getFreeCell(matrix);
+        double next = Double.POSITIVE_INFINITY;
+
+        for (int move = 0; move < PackedPuzzle.MOVES.length; move++) {
+            int tileCell = neighbour[freeCell][move];
+            if (tileCell == -1)
+                continue;
+
+            double value = deltaF[matrix[tileCell / size][tileCell % size]][freeCell][move];
+            if (value == requestedDeltaF)
+                result.add(ACTIONS[move]);
+            else if (value > requestedDeltaF && value < next)
+                next = value;
+        }
+
+        return next;
+    }
+
+    /**
+     * Gets the manhattan distance of a tile placed in a certain cell to its target cell
+     * @param tile Tile
+     * @param cell Cell
+     * @return Distance
+     */
+    private int getDistance(int tile, int cell) {
+        int target = targetCell[tile];
+        return Math.abs(target / size - cell / size) + Math.abs(target % size - cell % size);
+    }
+
+    /**
+     * Locates the free cell of a matrix
+     * @param matrix Matrix
+     * @return Free cell
+     */
+    private int getFreeCell(int[][] matrix) {
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                if (matrix[row][column] == 0)
+                    return row * size + column;
+            }
+        }
+        return -1;
+    }
+}
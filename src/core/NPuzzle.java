@@ -3,16 +3,21 @@ package core;
 import agent.Action;
 import search.agent.SearchAgent;
 import search.framework.Metrics;
+import search.framework.Node;
+import search.framework.NodeExpander;
 import search.framework.SearchForActions;
-import search.framework.problem.GeneralProblem;
+import search.framework.SearchProfiler;
+import search.framework.jfr.EventLabels;
 import search.framework.problem.Problem;
 import search.framework.qsearch.TreeSearch;
 import search.informed.AStarSearch;
+import search.informed.BidirectionalMMSearch;
 import search.informed.GreedyBestFirstSearch;
 import search.uninformed.BreadthFirstSearch;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.function.ToDoubleFunction;
 
 public class NPuzzle {
 
@@ -31,6 +36,16 @@ public class NPuzzle {
      */
     private static int MAX_DEPTH = 1000;
 
+    /**
+     * System property which enables profiling, e.g. -Dnpuzzle.profile=true
+     */
+    private static final String PROFILE_PROPERTY = "npuzzle.profile";
+
+    /**
+     * Samples the phases of every search if profiling is enabled, durations are aggregated over all solves
+     */
+    private static final SearchProfiler profiler = Boolean.getBoolean(PROFILE_PROPERTY) ? new SearchProfiler() : SearchProfiler.DISABLED;
+
     public static void main(String[] args) throws Exception {
 
         // Read filename and initialize map
@@ -50,7 +65,8 @@ public class NPuzzle {
                 add("1 - Breadth-First Search");
                 add("2 - Greedy-Best-First Search");
                 add("3 - A-StarSearch");
-                add("4 - Exit\n");
+                add("4 - Bidirectional MM Search");
+                add("5 - Exit\n");
             }
         };
 
@@ -79,6 +95,10 @@ public class NPuzzle {
                     informedSearch(new Puzzle(), "A-StarSearch", Integer.parseInt(aStarHeuristic));
                     break;
                 case "4":
+                    String mmHeuristic = read_input(possibleHeuristics, "Select an heuristic: ", "Invalid option. Try again !", 1, possibleHeuristics.size() - 1);
+                    informedSearch(new Puzzle(), "Bidirectional MM Search", Integer.parseInt(mmHeuristic));
+                    break;
+                case "5":
                     return;
             }
         }
@@ -118,21 +138,22 @@ public class NPuzzle {
      * @param algorithm Algorithm to be used
      */
     private static void uninformedSearch(Puzzle map, String algorithm) throws IOException, InterruptedException {
-        Problem<State, Action> problem = new GeneralProblem<>(map.getCurrState(), Puzzle::getActions, Puzzle::getResult,  Puzzle::testGoal);
-        SearchForActions<State, Action> search = new BreadthFirstSearch<>(new TreeSearch<>());
+        Problem<State, Action> problem = Puzzle.createProblem(map.getCurrState());
+        TreeSearch<State, Action> impl = new TreeSearch<>(createNodeExpander());
+        impl.setBytesPerNode(Puzzle.estimateBytesPerNode(map.getCurrState()));
+        SearchForActions<State, Action> search = new BreadthFirstSearch<>(impl);
+        impl.getEventLabels().set(algorithm, null, map.getCurrState().getMatrix().length);
 
-        long memory = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
         long start = System.currentTimeMillis();
 
         Optional<List<Action>> actions = search.findActions(problem);
 
         long elapsedTime = System.currentTimeMillis() - start;
-        long memoryUsage = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
 
         if(actions.isPresent())
-            displayAlgorithmInformation(map, actions.get(), search.getMetrics(), null, elapsedTime, memoryUsage);
+            displayAlgorithmInformation(map, actions.get(), search.getMetrics(), null, elapsedTime);
         else
-            displayAlgorithmInformation(map, new ArrayList<>(), search.getMetrics(), null, elapsedTime, memoryUsage);
+            displayAlgorithmInformation(map, new ArrayList<>(), search.getMetrics(), null, elapsedTime);
     }
 
     /**
@@ -141,27 +162,66 @@ public class NPuzzle {
      * @param algorithm Algorithm to be used
      */
     private static void informedSearch(Puzzle map, String algorithm, int heuristic) throws Exception {
-        Problem<State, Action> problem = new GeneralProblem<>(map.getCurrState(), Puzzle::getActions, Puzzle::getResult,  Puzzle::testGoal);
+        Problem<State, Action> problem = Puzzle.createProblem(map.getCurrState());
+        TreeSearch<State, Action> impl = new TreeSearch<>(createNodeExpander());
+        impl.setBytesPerNode(Puzzle.estimateBytesPerNode(map.getCurrState()));
         SearchForActions<State, Action> search = null;
+        EventLabels eventLabels = impl.getEventLabels();
 
         switch (algorithm) {
             case "Greedy-Best-First Search":
-                search = new GreedyBestFirstSearch<>(new TreeSearch<>(), Puzzle.createHeuristicFunction(heuristic));
+                search = new GreedyBestFirstSearch<>(impl, createHeuristicFunction(heuristic));
                 break;
             case "A-StarSearch":
-                search = new AStarSearch<>(new TreeSearch<>(), Puzzle.createHeuristicFunction(heuristic));
+                search = new AStarSearch<>(impl, createHeuristicFunction(heuristic));
+                break;
+            case "Bidirectional MM Search":
+                // searches from the solution towards the initial state, too
+                problem = new BidirectionalPuzzle(map.getCurrState());
+                BidirectionalMMSearch<State, Action> mmSearch = new BidirectionalMMSearch<>(createHeuristicFunction(heuristic),
+                        createHeuristicFunction(heuristic, map.getCurrState()), createNodeExpander());
+                mmSearch.setMinStepCost(1);
+                eventLabels = mmSearch.getEventLabels();
+                search = mmSearch;
                 break;
         }
+        eventLabels.set(algorithm, heuristic == 1 ? "Misplaced Pieces" : "Manhattan Distance", map.getCurrState().getMatrix().length);
 
-        long memory = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
         long start = System.currentTimeMillis();
 
         SearchAgent<State, Action> agent = new SearchAgent<>(problem, search);
 
         long elapsedTime = System.currentTimeMillis() - start;
-        long memoryUsage = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
 
-        displayAlgorithmInformation(map, agent.getActions(), null, agent.getInstrumentation(), elapsedTime, memoryUsage);
+        displayAlgorithmInformation(map, agent.getActions(), null, agent.getInstrumentation(), elapsedTime);
+    }
+
+    /**
+     * Creates heuristic function which reports to the profiler if profiling is enabled
+     * @return New heuristic function
+     */
+    private static ToDoubleFunction<Node<State, Action>> createHeuristicFunction(int heuristic) {
+        return createHeuristicFunction(heuristic, null);
+    }
+
+    /**
+     * Creates heuristic function which estimates the distance to a certain target and reports to the profiler if
+     * profiling is enabled
+     * @param target Target state (the solution if null)
+     * @return New heuristic function
+     */
+    private static ToDoubleFunction<Node<State, Action>> createHeuristicFunction(int heuristic, State target) {
+        ToDoubleFunction<Node<State, Action>> result = Puzzle.createHeuristicFunction(heuristic, target);
+        return profiler.isEnabled() ? profiler.timeHeuristic(result) : result;
+    }
+
+    /**
+     * Creates a node expander which reports to the profiler
+     */
+    private static NodeExpander<State, Action> createNodeExpander() {
+        NodeExpander<State, Action> result = new NodeExpander<>();
+        result.setProfiler(profiler);
+        return result;
     }
 
     /**
@@ -188,11 +248,11 @@ public class NPuzzle {
      * @param properties Algorithm metrics
      * @param elapsedTime Time elapsed
      */
-    private static void displayAlgorithmInformation(Puzzle map, List<Action> actions, Metrics metrics, Properties properties, long elapsedTime, long memoryUsage) throws IOException, InterruptedException {
+    private static void displayAlgorithmInformation(Puzzle map, List<Action> actions, Metrics metrics, Properties properties, long elapsedTime) throws IOException, InterruptedException {
         displayTitle();
         map.display();
         displaySolution(actions);
-        displayStatistics(metrics, properties, elapsedTime, memoryUsage);
+        displayStatistics(metrics, properties, elapsedTime);
         blockUntil();
     }
 
@@ -219,7 +279,7 @@ public class NPuzzle {
      * @param properties Algorithm metrics
      * @param elapsedTime Time elapsed
      */
-    private static void displayStatistics(Metrics metrics, Properties properties, long elapsedTime, long memoryUsage) {
+    private static void displayStatistics(Metrics metrics, Properties properties, long elapsedTime) {
 
         ArrayList<String> stats = new ArrayList<>();
         ArrayList<String> info = new ArrayList<>() {
@@ -228,6 +288,9 @@ public class NPuzzle {
                 add("nodesExpanded");
                 add("pathCost");
                 add("queueSize");
+                add("allocatedBytes");
+                add("peakMemory");
+                add("maxLiveNodes");
             }
         };
 
@@ -235,7 +298,7 @@ public class NPuzzle {
             if (metrics != null)
                 stats.add(metrics.get(name));
             else
-                stats.add(properties.get(name).toString());
+                stats.add(properties.getProperty(name));
         }
 
         System.out.println("\n##############");
@@ -246,7 +309,12 @@ public class NPuzzle {
         System.out.println("Path Cost = " + stats.get(2));
         System.out.println("Queue Size = " + stats.get(3));
         System.out.println("Time Spent = " + elapsedTime + " ms");
-        System.out.println("Memory Usage = " + humanReadableByteCount(memoryUsage, true));
+        System.out.println("Memory Allocated = " + (stats.get(4) != null ? humanReadableByteCount(Long.parseLong(stats.get(4)), true) : "n/a"));
+        System.out.println("Peak Memory (estimated) = " + (stats.get(5) != null ? humanReadableByteCount(Long.parseLong(stats.get(5)), true) + " for " + stats.get(6) + " nodes" : "n/a"));
+
+        if(profiler.isEnabled())
+            System.out.println("\n" + profiler);
+
         System.out.println();
     }
 
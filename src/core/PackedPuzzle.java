@@ -0,0 +1,232 @@
+package core;
+
+import search.framework.problem.PackedProblem;
+
+import java.util.function.LongToIntFunction;
+
+public class PackedPuzzle implements PackedProblem<State> {
+
+    /**
+     * Move names indexed by move. Opposite moves only differ in the lowest bit
+     */
+    static final String[] MOVES = {"LEFT", "RIGHT", "UP", "DOWN"};
+
+    /**
+     * Nibble masks used to locate the free cell
+     */
+    private static final long LOW_NIBBLE_BITS = 0x1111111111111111L;
+    private static final long HIGH_NIBBLE_BITS = 0x8888888888888888L;
+
+    /**
+     * Matrix size
+     */
+    private final int size;
+
+    /**
+     * Cell reached by the free cell for each cell and move (-1 if not possible)
+     */
+    private final int[][] target;
+
+    /**
+     * Initializes a packed puzzle. Every cell uses four bits, so at most 16 cells are supported
+     * @param size Matrix size
+     */
+    public PackedPuzzle(int size) {
+        if (size * size > 16)
+            throw new IllegalArgumentException("Only puzzles with up to 16 cells can be packed.");
+
+        this.size = size;
+        this.target = new int[size * size][MOVES.length];
+
+        for (int cell = 0; cell < size * size; cell++) {
+            int row = cell / size;
+            int column = cell % size;
+            target[cell][0] = column != 0 ? cell - 1 : -1;
+            target[cell][1] = column != size - 1 ? cell + 1 : -1;
+            target[cell][2] = row != 0 ? cell - size : -1;
+            target[cell][3] = row != size - 1 ? cell + size : -1;
+        }
+    }
+
+    /**
+     * Returns matrix size
+     * @return Matrix size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the name of a move, as used by the state actions
+     * @param move Move index
+     * @return Move name
+     */
+    public static String getMoveName(int move) {
+        return MOVES[move];
+    }
+
+    /**
+     * Returns the move which undoes a certain move
+     * @param move Move index
+     * @return Opposite move index
+     */
+    public static int getOppositeMove(int move) {
+        return move ^ 1;
+    }
+
+    /**
+     * Packs a matrix, storing cell (row, column) in the bits starting at 4 * (row * size + column)
+     * @param matrix Matrix to be packed
+     * @return Matrix code
+     */
+    public long encode(int[][] matrix) {
+        long code = 0;
+
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++)
+                code |= (long) matrix[row][column] << (4 * (row * size + column));
+        }
+
+        return code;
+    }
+
+    @Override
+    public long encode(State state) {
+        return encode(state.getMatrix());
+    }
+
+    /**
+     * Unpacks a matrix code
+     * @param code Matrix code
+     * @return Matrix
+     */
+    public int[][] toMatrix(long code) {
+        int[][] matrix = new int[size][size];
+
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++)
+                matrix[row][column] = getTile(code, row * size + column);
+        }
+
+        return matrix;
+    }
+
+    @Override
+    public State decode(long code) {
+        return new State(toMatrix(code));
+    }
+
+    @Override
+    public int getMaxBranchingFactor() {
+        return MOVES.length;
+    }
+
+    @Override
+    public long applyMove(long code, int move) {
+        int freeCell = getFreeCell(code);
+        int tileCell = target[freeCell][move];
+
+        if (tileCell == -1)
+            return NO_STATE;
+
+        long tile = (code >>> (4 * tileCell)) & 0xF;
+        return code & ~(0xFL << (4 * tileCell)) | tile << (4 * freeCell);
+    }
+
+    @Override
+    public boolean isReversible() {
+        return true;
+    }
+
+    @Override
+    public int getInverseMove(int move) {
+        return getOppositeMove(move);
+    }
+
+    /**
+     * Returns the tile stored in a certain cell
+     * @param code Matrix code
+     * @param cell Cell index (row * size + column)
+     * @return Tile
+     */
+    public static int getTile(long code, int cell) {
+        return (int) (code >>> (4 * cell)) & 0xF;
+    }
+
+    /**
+     * Returns the index of the free cell. The lowest zero nibble is the free cell, as unused nibbles are above it
+     * @param code Matrix code
+     * @return Cell index (row * size + column)
+     */
+    public static int getFreeCell(long code) {
+        long zeroNibbles = (code - LOW_NIBBLE_BITS) & ~code & HIGH_NIBBLE_BITS;
+        return Long.numberOfTrailingZeros(zeroNibbles) >>> 2;
+    }
+
+    /**
+     * Returns the cell reached by the free cell when performing a certain move
+     * @param cell Free cell index
+     * @param move Move index
+     * @return Cell index, or -1 if the move is not possible
+     */
+    public int getTargetCell(int cell, int move) {
+        return target[cell][move];
+    }
+
+    /**
+     * Creates the manhattan distance heuristic on matrix codes. The free cell is not counted, so the heuristic is
+     * consistent
+     * @param goal Goal matrix code
+     * @return Heuristic function
+     */
+    public LongToIntFunction createManhattanDistance(long goal) {
+        int cells = size * size;
+        int[][] distance = new int[cells][cells];
+
+        for (int cell = 0; cell < cells; cell++) {
+            int tile = getTile(goal, cell);
+            for (int other = 0; other < cells; other++)
+                distance[tile][other] = tile == 0 ? 0 : Math.abs(cell / size - other / size) + Math.abs(cell % size - other % size);
+        }
+
+        return code -> {
+            int result = 0;
+            for (int cell = 0; cell < cells; cell++)
+                result += distance[getTile(code, cell)][cell];
+            return result;
+        };
+    }
+
+    /**
+     * Returns the number of permutations of the tiles, half of which are reachable
+     * @return Number of ranks
+     */
+    public long getStateCount() {
+        long result = 1;
+
+        for (int i = 2; i <= size * size; i++)
+            result *= i;
+
+        return result;
+    }
+
+    /**
+     * Computes the rank of a matrix code among all permutations of the tiles (Lehmer code)
+     * @param code Matrix code
+     * @return Rank between 0 and getStateCount() - 1
+     */
+    public long rank(long code) {
+        int cells = size * size;
+        long result = 0;
+        int used = 0;
+
+        for (int cell = 0; cell < cells; cell++) {
+            int tile = getTile(code, cell);
+            int smallerUnused = tile - Integer.bitCount(used & ((1 << tile) - 1));
+            result = result * (cells - cell) + smallerUnused;
+            used |= 1 << tile;
+        }
+
+        return result;
+    }
+}
@@ -2,7 +2,11 @@ package core;
 
 import agent.Action;
 import agent.impl.DynamicAction;
+import search.framework.MemoryMeter;
 import search.framework.Node;
+import search.framework.problem.GeneralProblem;
+import search.framework.problem.Problem;
+import search.framework.problem.SuccessorVisitor;
 
 import java.util.*;
 import java.util.function.ToDoubleFunction;
@@ -27,6 +31,21 @@ public class Puzzle {
      */
     private static Map<String, Integer> searchInfo;
 
+    /**
+     * Moves in the order of State.getActions
+     */
+    private static final String[] MOVES = {"LEFT", "RIGHT", "UP", "DOWN"};
+
+    /**
+     * Actions of the moves, shared by all successors generated by forEachSuccessor. They must not be modified
+     */
+    private static final Action[] MOVE_ACTIONS = new Action[MOVES.length];
+
+    static {
+        for(int i = 0; i < MOVES.length; i++)
+            MOVE_ACTIONS[i] = new DynamicAction(MOVES[i]);
+    }
+
     /**
      * Initializes level class
      */
@@ -91,21 +110,107 @@ public class Puzzle {
         for(String action : currState.getActions()) {
             State nextState = getResult(currState, new DynamicAction(action));
 
-            if(searchInfo.containsKey(Arrays.deepToString(nextState.getMatrix()))) {
-                if(searchInfo.get(Arrays.deepToString(nextState.getMatrix())) > nextState.getPathCost()) {
-                    searchInfo.put(Arrays.deepToString(nextState.getMatrix()), nextState.getPathCost());
-                    actions.add(new DynamicAction(action));
-                }
-            }
-            else {
-                searchInfo.put(Arrays.deepToString(nextState.getMatrix()), nextState.getPathCost());
+            if(markVisited(nextState))
                 actions.add(new DynamicAction(action));
-            }
         }
 
         return actions;
     }
 
+    /**
+     * Passes each successor of a certain state which getActions would lead to, together with its action and step
+     * cost, to the visitor. No action list is created and every successor state is created only once
+     * @param currState Current state
+     * @param visitor Visitor receiving the successors
+     */
+    static void forEachSuccessor(State currState, SuccessorVisitor<State, Action> visitor) {
+        for(int i = 0; i < MOVES.length && !visitor.isDone(); i++) {
+            if(!currState.canExecuteAction(MOVES[i]))
+                continue;
+
+            State nextState = new State(currState);
+            nextState.executeAction(MOVES[i]);
+
+            if(markVisited(nextState))
+                visitor.visit(MOVE_ACTIONS[i], nextState, 1);
+        }
+    }
+
+    /**
+     * Records the path cost of a state in the search information
+     * @param nextState State reached
+     * @return True if the state was not reached before or is now reached with a lower path cost. False otherwise
+     */
+    private static boolean markVisited(State nextState) {
+        String key = Arrays.deepToString(nextState.getMatrix());
+        Integer pathCost = searchInfo.get(key);
+
+        if(pathCost != null && pathCost <= nextState.getPathCost())
+            return false;
+
+        searchInfo.put(key, nextState.getPathCost());
+        return true;
+    }
+
+    /**
+     * Estimates the bytes retained per search node with compressed references: the node itself, its state with
+     * matrix, solution and free cell arrays (each state holds its own copies), and the entry of the state in the
+     * search information. Actions are shared and not counted
+     * @param state Any state of the puzzle
+     * @return Estimated bytes per node
+     */
+    static int estimateBytesPerNode(State state) {
+        int n = state.getMatrix().length;
+        // header, five fields
+        int stateBytes = 32;
+        int matrixBytes = alignedArrayBytes(n) + n * alignedArrayBytes(n);
+        int freeCellBytes = alignedArrayBytes(2) + 2 * alignedArrayBytes(1);
+        // string with byte array, hash map entry and table slot
+        int keyLength = Arrays.deepToString(state.getMatrix()).length();
+        int searchInfoBytes = 24 + align(16 + keyLength) + 32 + 8;
+
+        return MemoryMeter.NODE_BYTES + stateBytes + 2 * matrixBytes + freeCellBytes + searchInfoBytes;
+    }
+
+    /**
+     * Bytes of an array with a certain number of int or reference elements
+     */
+    private static int alignedArrayBytes(int length) {
+        return align(16 + 4 * length);
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    /**
+     * Creates the search problem for a certain initial state, which generates successors without action lists
+     * @param initialState Initial state
+     * @return New problem
+     */
+    static Problem<State, Action> createProblem(State initialState) {
+        return new GeneralProblem<State, Action>(initialState, Puzzle::getActions, Puzzle::getResult, Puzzle::testGoal) {
+            @Override
+            public void forEachSuccessor(State state, SuccessorVisitor<State, Action> visitor) {
+                Puzzle.forEachSuccessor(state, visitor);
+            }
+        };
+    }
+
+    /**
+     * Get all possible actions for a certain state, including the ones leading to already visited states
+     * @param currState Current state
+     * @return List of possible actions
+     */
+    static List<Action> getPossibleActions(State currState) {
+        List<Action> actions = new ArrayList<>();
+
+        for(String action : currState.getActions())
+            actions.add(new DynamicAction(action));
+
+        return actions;
+    }
+
     /**
      * Get the result for a certain action
      * @param currState All agents in a certain map
@@ -140,22 +245,44 @@ public class Puzzle {
      * @return New heuristic function
      */
     static ToDoubleFunction<Node<State, Action>> createHeuristicFunction(int heuristicFunction) {
+        return createHeuristicFunction(heuristicFunction, null);
+    }
+
+    /**
+     * Creates heuristic function which estimates the distance to a certain target
+     * @param target Target state (the solution if null)
+     * @return New heuristic function
+     */
+    static ToDoubleFunction<Node<State, Action>> createHeuristicFunction(int heuristicFunction, State target) {
+        int[][] targetMatrix = target != null ? target.getMatrix() : null;
+
         if(heuristicFunction == 1)
-            return new MisplacePieces();
+            return new MisplacePieces(targetMatrix);
         else
-            return new ManhattanDistance();
+            return new ManhattanDistance(targetMatrix);
     }
 
     
+    /**
+     * Counts the pieces which are not at their target position. The blank is not a piece, counting it would make
+     * the heuristic inadmissible
+     */
     private static class MisplacePieces implements ToDoubleFunction<Node<State, Action>> {
 
+        private final int[][] target;
+
+        MisplacePieces(int[][] target) {
+            this.target = target;
+        }
+
         @Override
         public double applyAsDouble(Node<State, Action> node) {
             double result = 0;
+            int[][] solution = target != null ? target : node.getState().getSolution();
 
             for(int i = 0; i < node.getState().getMatrix().length; i++) {
                 for(int j = 0; j < node.getState().getMatrix()[i].length; j++) {
-                    if(node.getState().getMatrix()[i][j] != node.getState().getSolution()[i][j])
+                    if(node.getState().getMatrix()[i][j] != 0 && node.getState().getMatrix()[i][j] != solution[i][j])
                         result++;
                 }
             }
@@ -164,16 +291,26 @@ public class Puzzle {
         }
     }
 
+    /**
+     * Sums the distances of the pieces to their target positions, without the blank
+     */
     private static class ManhattanDistance implements ToDoubleFunction<Node<State, Action>> {
 
+        private final int[][] target;
+
+        ManhattanDistance(int[][] target) {
+            this.target = target;
+        }
+
         @Override
         public double applyAsDouble(Node<State, Action> node) {
             double result = 0;
+            int[][] solution = target != null ? target : node.getState().getSolution();
 
             for(int i = 0; i < node.getState().getMatrix().length; i++) {
                 for(int j = 0; j < node.getState().getMatrix()[i].length; j++) {
-                    if(node.getState().getMatrix()[i][j] != node.getState().getSolution()[i][j])
-                        result += node.getState().getManhattanDistance(i, j);
+                    if(node.getState().getMatrix()[i][j] != 0 && node.getState().getMatrix()[i][j] != solution[i][j])
+                        result += node.getState().getManhattanDistance(i, j, solution);
                 }
             }
 
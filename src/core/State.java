@@ -39,6 +39,15 @@ public class State {
      */
     State(int[][] matrix) {
         this.matrix = deepCopy(matrix);
+
+        for(int row = 0; row < matrix.length; row++) {
+            for(int column = 0; column < matrix[row].length; column++) {
+                if(matrix[row][column] == 0) {
+                    free_cell[0][0] = column;
+                    free_cell[1][0] = row;
+                }
+            }
+        }
     }
 
     State(State currState) {
@@ -105,6 +114,28 @@ public class State {
         return actions;
     }
 
+    /**
+     * Checks whether a certain action can be executed, without creating the list of possible actions
+     * @param action Action to be checked
+     * @return True if the free cell can be moved in the direction of the action. False otherwise
+     */
+    boolean canExecuteAction(String action) {
+        int limit = matrix.length - 1;
+
+        switch (action) {
+            case "UP":
+                return free_cell[1][0] != 0;
+            case "DOWN":
+                return free_cell[1][0] != limit;
+            case "RIGHT":
+                return free_cell[0][0] != limit;
+            case "LEFT":
+                return free_cell[0][0] != 0;
+            default:
+                return false;
+        }
+    }
+
     /**
      * Executes a certain action
      * @param action Action to be executed
@@ -141,12 +172,23 @@ public class State {
      * @return Distance
      */
     double getManhattanDistance(int y, int x)  {
+        return getManhattanDistance(y, x, solution);
+    }
+
+    /**
+     * Gets manhattan distance from a piece to its position in a certain target matrix
+     * @param y Y position
+     * @param x X position
+     * @param target Target matrix
+     * @return Distance
+     */
+    double getManhattanDistance(int y, int x, int[][] target)  {
         int num = matrix[y][x];
         double result = 0;
 
-        for(int i = 0; i < solution.length; i++) {
-            for(int j = 0; j < solution[i].length; j++) {
-                if(solution[i][j] == num)
+        for(int i = 0; i < target.length; i++) {
+            for(int j = 0; j < target[i].length; j++) {
+                if(target[i][j] == num)
                     result = Math.abs(y - i) + Math.abs(x - j);
             }
         }
@@ -155,6 +197,21 @@ public class State {
     }
 
 
+    /**
+     * States are equal if their matrices are equal
+     * @param o Other object
+     * @return True if both states have the same matrix. False otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof State && Arrays.deepEquals(matrix, ((State) o).matrix);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.deepHashCode(matrix);
+    }
+
     /**
      * Deep copy a bi-dimensional array
      * @param original Original array
@@ -0,0 +1,64 @@
+package core;
+
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+/**
+ * Zobrist hashing of puzzle states: each combination of cell and tile gets a random 64 bit key, and the key of a state
+ * is the xor of the keys of its tiles. The keys are well distributed over all 64 bits, as needed by approximate
+ * explored sets like {@link search.framework.explored.BloomExploredSet}.
+ */
+public class ZobristHash implements ToLongFunction<State> {
+
+    /**
+     * Seed of the default keys, so that runs are reproducible
+     */
+    public static final long DEFAULT_SEED = 0x5DEECE66DL;
+
+    /**
+     * Random key indexed by cell and tile
+     */
+    private final long[][] keys;
+
+    /**
+     * Matrix size
+     */
+    private final int size;
+
+    /**
+     * Creates keys for square matrices of the given size
+     * @param size Matrix size
+     */
+    public ZobristHash(int size) {
+        this(size, DEFAULT_SEED);
+    }
+
+    /**
+     * Creates keys for square matrices of the given size
+     * @param size Matrix size
+     * @param seed Seed of the random keys
+     */
+    public ZobristHash(int size, long seed) {
+        Random random = new Random(seed);
+        this.size = size;
+        keys = new long[size * size][size * size];
+        for (long[] cellKeys : keys)
+            for (int tile = 0; tile < cellKeys.length; tile++)
+                cellKeys[tile] = random.nextLong();
+    }
+
+    /**
+     * Returns the Zobrist key of the state
+     * @param state State
+     * @return Key
+     */
+    @Override
+    public long applyAsLong(State state) {
+        int[][] matrix = state.getMatrix();
+        long result = 0;
+        for (int row = 0; row < size; row++)
+            for (int column = 0; column < size; column++)
+                result ^= keys[row * size + column][matrix[row][column]];
+        return result;
+    }
+}
@@ -0,0 +1,196 @@
+package search.framework;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Priority queue for elements with small non-negative integer priorities, as
+ * they occur in search problems with unit or small integer step costs. The
+ * queue is an array of buckets indexed by priority. Each bucket is split into
+ * deques indexed by a secondary key (typically the path cost g), which is used
+ * for tie-breaking. Insertion is O(1) and removal is O(1) amortized, as the
+ * index of the lowest non-empty bucket only moves forward between insertions
+ * of better elements.<br>
+ * <br>
+ * Tie-breaking among elements of equal priority:
+ * <ul>
+ * <li>FIFO: first-in-first-out, the secondary key is ignored.</li>
+ * <li>LIFO: last-in-first-out, the secondary key is ignored.</li>
+ * <li>LARGER_SECONDARY: elements with larger secondary key first, LIFO for
+ * equal keys. For A* with g as secondary key, deeper nodes are preferred,
+ * which saves most expansions of the last f-layer.</li>
+ * </ul>
+ * Like {@link PriorityQueue}, the smallest element comes first. Removal of
+ * arbitrary elements only scans the bucket of the element. The iterator does
+ * not support removal.
+ *
+ * @param <E> the type of elements held in this queue
+ */
+public class BucketQueue<E> extends AbstractQueue<E> {
+
+	public enum TieBreaking {
+		FIFO, LIFO, LARGER_SECONDARY
+	}
+
+	private final ToIntFunction<? super E> priorityFn;
+	private final ToIntFunction<? super E> secondaryFn;
+	private final TieBreaking tieBreaking;
+	private final List<Bucket<E>> buckets = new ArrayList<>();
+	// all buckets below this index are empty
+	private int minBucket;
+	private int size;
+
+	/**
+	 * Creates a bucket queue.
+	 *
+	 * @param priorityFn
+	 *            function which maps elements to priorities &gt;= 0.
+	 * @param secondaryFn
+	 *            function which maps elements to secondary keys &gt;= 0, only
+	 *            used for tie-breaking policy LARGER_SECONDARY.
+	 * @param tieBreaking
+	 *            tie-breaking policy for elements of equal priority.
+	 */
+	public BucketQueue(ToIntFunction<? super E> priorityFn, ToIntFunction<? super E> secondaryFn,
+					   TieBreaking tieBreaking) {
+		this.priorityFn = priorityFn;
+		this.secondaryFn = tieBreaking == TieBreaking.LARGER_SECONDARY ? secondaryFn : e -> 0;
+		this.tieBreaking = tieBreaking;
+	}
+
+	public TieBreaking getTieBreaking() {
+		return tieBreaking;
+	}
+
+	/**
+	 * Returns a comparator which is consistent with the order of the queue
+	 * with respect to priorities and secondary keys.
+	 */
+	public Comparator<E> comparator() {
+		Comparator<E> result = Comparator.comparingInt(priorityFn);
+		return tieBreaking == TieBreaking.LARGER_SECONDARY
+				? result.thenComparing(Comparator.<E>comparingInt(secondaryFn).reversed())
+				: result;
+	}
+
+	@Override
+	public boolean offer(E e) {
+		int priority = getKey(priorityFn, e);
+		while (buckets.size() <= priority)
+			buckets.add(new Bucket<>());
+		buckets.get(priority).add(e, getKey(secondaryFn, e));
+		if (priority < minBucket)
+			minBucket = priority;
+		size++;
+		return true;
+	}
+
+	@Override
+	public E poll() {
+		if (size == 0)
+			return null;
+		size--;
+		return getMinBucket().poll(tieBreaking == TieBreaking.FIFO);
+	}
+
+	@Override
+	public E peek() {
+		return size > 0 ? getMinBucket().peek(tieBreaking == TieBreaking.FIFO) : null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean remove(Object o) {
+		E e = (E) o;
+		int priority = priorityFn.applyAsInt(e);
+		if (priority >= 0 && priority < buckets.size() && buckets.get(priority).remove(e, secondaryFn.applyAsInt(e))) {
+			size--;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		buckets.clear();
+		minBucket = 0;
+		size = 0;
+	}
+
+	/** Iterates over the elements in bucket order. Removal is not supported. */
+	@Override
+	public Iterator<E> iterator() {
+		List<E> elements = new ArrayList<>(size);
+		for (Bucket<E> bucket : buckets)
+			for (Deque<E> deque : bucket.deques)
+				if (deque != null)
+					elements.addAll(deque);
+		return Collections.unmodifiableList(elements).iterator();
+	}
+
+	private Bucket<E> getMinBucket() {
+		while (buckets.get(minBucket).size == 0)
+			minBucket++;
+		return buckets.get(minBucket);
+	}
+
+	private static <E> int getKey(ToIntFunction<? super E> fn, E e) {
+		int result = fn.applyAsInt(e);
+		if (result < 0)
+			throw new IllegalArgumentException("Bucket queue keys must not be negative: " + result);
+		return result;
+	}
+
+	/**
+	 * Elements of equal priority, split into deques by secondary key.
+	 */
+	private static class Bucket<E> {
+		private final List<ArrayDeque<E>> deques = new ArrayList<>(1);
+		// all deques above this index are empty
+		private int maxDeque = -1;
+		private int size;
+
+		void add(E e, int key) {
+			while (deques.size() <= key)
+				deques.add(null);
+			ArrayDeque<E> deque = deques.get(key);
+			if (deque == null) {
+				deque = new ArrayDeque<>();
+				deques.set(key, deque);
+			}
+			deque.addLast(e);
+			if (key > maxDeque)
+				maxDeque = key;
+			size++;
+		}
+
+		E poll(boolean fifo) {
+			ArrayDeque<E> deque = getMaxDeque();
+			size--;
+			return fifo ? deque.pollFirst() : deque.pollLast();
+		}
+
+		E peek(boolean fifo) {
+			ArrayDeque<E> deque = getMaxDeque();
+			return fifo ? deque.peekFirst() : deque.peekLast();
+		}
+
+		boolean remove(E e, int key) {
+			if (key < 0 || key >= deques.size() || deques.get(key) == null || !deques.get(key).remove(e))
+				return false;
+			size--;
+			return true;
+		}
+
+		private ArrayDeque<E> getMaxDeque() {
+			while (deques.get(maxDeque) == null || deques.get(maxDeque).isEmpty())
+				maxDeque--;
+			return deques.get(maxDeque);
+		}
+	}
+}
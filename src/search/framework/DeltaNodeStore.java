@@ -0,0 +1,285 @@
+package search.framework;
+
+import search.framework.problem.PackedProblem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact node store for searches on packed states (see
+ * {@link PackedProblem}) which exploits that a child differs from its parent
+ * by a single move. A node consists of the handle of its parent
+ * (<code>int</code>) and one byte holding the move index in its lowest bits
+ * (2 bits for the N-Puzzle) and the distance to the last checkpoint in the
+ * others. Only roots and every k-th node along a parent chain (checkpoints)
+ * store their full state. Other states are materialized on demand by
+ * replaying at most k - 1 moves from the nearest checkpoint or cached
+ * ancestor. A bounded direct-mapped cache of materialized states, indexed by
+ * handle without boxing, keeps repeated access cheap. It holds the last
+ * requested nodes and their parents, so siblings requested one after another
+ * are replayed from their parent with a single move.<br>
+ * <br>
+ * A node costs 5 bytes plus 1/k of a checkpoint entry, compared to 17 bytes
+ * in a {@link NodeArena}. Nodes are referenced by <code>int</code> handles,
+ * which are assigned in insertion order. The store is not thread safe.
+ */
+public class DeltaNodeStore {
+
+	public static final int NO_NODE = -1;
+	public static final int DEFAULT_CHECKPOINT_INTERVAL = 16;
+	public static final int DEFAULT_CACHE_SIZE = 1 << 12;
+
+	private static final int CHUNK_BITS = 16;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private final PackedProblem<?> problem;
+	private final int moveBits;
+	private final int moveMask;
+	private final int checkpointInterval;
+	private final List<int[]> parents = new ArrayList<>();
+	private final List<byte[]> infos = new ArrayList<>();
+	// direct-mapped cache of materialized states, indexed by handle
+	private final int[] cacheKeys;
+	private final long[] cacheStates;
+	private final int[] replayMoves;
+	private int size;
+
+	// checkpoint states by handle, open addressing
+	private int[] checkpointKeys;
+	private long[] checkpointStates;
+	private int checkpoints;
+
+	private long lookups;
+	private long hits;
+
+	/**
+	 * Creates a store with default checkpoint interval and cache size.
+	 */
+	public DeltaNodeStore(PackedProblem<?> problem) {
+		this(problem, DEFAULT_CHECKPOINT_INTERVAL, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Creates a store.
+	 *
+	 * @param problem
+	 *            the packed state space.
+	 * @param checkpointInterval
+	 *            the distance k between checkpoints along parent chains.
+	 * @param cacheSize
+	 *            the maximum number of cached materialized states, rounded
+	 *            down to a power of two.
+	 */
+	public DeltaNodeStore(PackedProblem<?> problem, int checkpointInterval, int cacheSize) {
+		this.problem = problem;
+		moveBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(problem.getMaxBranchingFactor() - 1));
+		moveMask = (1 << moveBits) - 1;
+		if (checkpointInterval < 1 || checkpointInterval > 1 << (Byte.SIZE - moveBits))
+			throw new IllegalArgumentException("Checkpoint interval must be between 1 and "
+					+ (1 << (Byte.SIZE - moveBits)) + ".");
+		this.checkpointInterval = checkpointInterval;
+		int cacheCapacity = Integer.highestOneBit(Math.max(1, cacheSize));
+		cacheKeys = new int[cacheCapacity];
+		cacheStates = new long[cacheCapacity];
+		Arrays.fill(cacheKeys, NO_NODE);
+		replayMoves = new int[checkpointInterval];
+		clearCheckpoints();
+	}
+
+	/** Adds a root node with the specified state and returns its handle. */
+	public int addRoot(long state) {
+		int handle = allocate(NO_NODE, 0, 0);
+		putCheckpoint(handle, state);
+		return handle;
+	}
+
+	/**
+	 * Adds the node which results from applying the move to the parent node
+	 * and returns its handle.
+	 *
+	 * @param state
+	 *            the state of the new node, which is stored if the node is a
+	 *            checkpoint.
+	 */
+	public int add(int parent, int move, long state) {
+		int distance = getDistance(parent) + 1;
+		if (distance == checkpointInterval)
+			distance = 0;
+		int handle = allocate(parent, move, distance);
+		if (distance == 0)
+			putCheckpoint(handle, state);
+		return handle;
+	}
+
+	public int getParent(int handle) {
+		return parents.get(handle >>> CHUNK_BITS)[handle & CHUNK_MASK];
+	}
+
+	/** Returns the index of the move which generated the node, undefined for roots. */
+	public int getMove(int handle) {
+		return infos.get(handle >>> CHUNK_BITS)[handle & CHUNK_MASK] & moveMask;
+	}
+
+	/**
+	 * Returns the state of the node. It is read from a checkpoint or the cache,
+	 * or replayed from the nearest one of them.
+	 */
+	public long getState(int handle) {
+		lookups++;
+		int slot = cacheSlot(handle);
+		if (cacheKeys[slot] == handle) {
+			hits++;
+			return cacheStates[slot];
+		}
+		int count = 0;
+		int node = handle;
+		long state;
+		while (true) {
+			if (getDistance(node) == 0) {
+				state = getCheckpoint(node);
+				break;
+			}
+			if (node != handle && cacheKeys[cacheSlot(node)] == node) {
+				hits++;
+				state = cacheStates[cacheSlot(node)];
+				break;
+			}
+			replayMoves[count++] = getMove(node);
+			node = getParent(node);
+		}
+		while (count > 0) {
+			state = problem.applyMove(state, replayMoves[--count]);
+			// siblings are usually requested next, so the parent is cached, too
+			if (count == 1)
+				putCache(getParent(handle), state);
+		}
+		putCache(handle, state);
+		return state;
+	}
+
+	/**
+	 * Returns the move indices of the path from the root to the specified node.
+	 */
+	public int[] getMoves(int handle) {
+		int length = 0;
+		for (int h = handle; getParent(h) != NO_NODE; h = getParent(h))
+			length++;
+		int[] result = new int[length];
+		for (int h = handle; getParent(h) != NO_NODE; h = getParent(h))
+			result[--length] = getMove(h);
+		return result;
+	}
+
+	/** Returns the number of nodes. */
+	public int size() {
+		return size;
+	}
+
+	/** Returns the number of checkpoint nodes, including roots. */
+	public int getCheckpointCount() {
+		return checkpoints;
+	}
+
+	/** Returns the number of bytes allocated for nodes and checkpoints, excluding the cache. */
+	public long getAllocatedBytes() {
+		return (long) parents.size() * CHUNK_SIZE * (Integer.BYTES + Byte.BYTES)
+				+ (long) checkpointKeys.length * (Integer.BYTES + Long.BYTES);
+	}
+
+	/**
+	 * Returns the fraction of {@link #getState(int)} calls answered from the
+	 * cache, directly or by replay from a cached ancestor.
+	 */
+	public double getCacheHitRate() {
+		return lookups > 0 ? (double) hits / lookups : 0;
+	}
+
+	/** Removes all nodes. The first chunk is kept for reuse. */
+	public void clear() {
+		while (parents.size() > 1) {
+			parents.remove(parents.size() - 1);
+			infos.remove(infos.size() - 1);
+		}
+		size = 0;
+		Arrays.fill(cacheKeys, NO_NODE);
+		clearCheckpoints();
+		lookups = 0;
+		hits = 0;
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	private int allocate(int parent, int move, int distance) {
+		if (size == Integer.MAX_VALUE)
+			throw new IllegalStateException("Node store is full.");
+		int handle = size++;
+		int chunk = handle >>> CHUNK_BITS;
+		if (chunk == parents.size()) {
+			parents.add(new int[CHUNK_SIZE]);
+			infos.add(new byte[CHUNK_SIZE]);
+		}
+		parents.get(chunk)[handle & CHUNK_MASK] = parent;
+		infos.get(chunk)[handle & CHUNK_MASK] = (byte) (distance << moveBits | move & moveMask);
+		return handle;
+	}
+
+	private int getDistance(int handle) {
+		return (infos.get(handle >>> CHUNK_BITS)[handle & CHUNK_MASK] & 0xFF) >>> moveBits;
+	}
+
+	private long getCheckpoint(int handle) {
+		int mask = checkpointKeys.length - 1;
+		int i = hash(handle) & mask;
+		while (checkpointKeys[i] != handle)
+			i = (i + 1) & mask;
+		return checkpointStates[i];
+	}
+
+	private void putCheckpoint(int handle, long state) {
+		if (2 * (checkpoints + 1) > checkpointKeys.length) {
+			int[] oldKeys = checkpointKeys;
+			long[] oldStates = checkpointStates;
+			allocateCheckpoints(oldKeys.length * 2);
+			for (int i = 0; i < oldKeys.length; i++)
+				if (oldKeys[i] != NO_NODE)
+					putCheckpoint(oldKeys[i], oldStates[i]);
+		}
+		int mask = checkpointKeys.length - 1;
+		int i = hash(handle) & mask;
+		while (checkpointKeys[i] != NO_NODE)
+			i = (i + 1) & mask;
+		checkpointKeys[i] = handle;
+		checkpointStates[i] = state;
+		checkpoints++;
+	}
+
+	private void clearCheckpoints() {
+		allocateCheckpoints(1024);
+	}
+
+	private void allocateCheckpoints(int capacity) {
+		checkpointKeys = new int[capacity];
+		Arrays.fill(checkpointKeys, NO_NODE);
+		checkpointStates = new long[capacity];
+		checkpoints = 0;
+	}
+
+	private int cacheSlot(int handle) {
+		return handle & (cacheKeys.length - 1);
+	}
+
+	private void putCache(int handle, long state) {
+		int slot = cacheSlot(handle);
+		cacheKeys[slot] = handle;
+		cacheStates[slot] = state;
+	}
+
+	private static int hash(int handle) {
+		return handle * 0x9E3779B9 >>> 7;
+	}
+
+}
@@ -0,0 +1,220 @@
+package search.framework;
+
+import java.util.*;
+
+/**
+ * Priority queue implemented as d-ary heap whose elements know their heap
+ * slot. Therefore, containment checks take constant time and removal of
+ * arbitrary elements as well as key updates take logarithmic time, whereas
+ * {@link PriorityQueue} needs linear time for both. Higher arity results in
+ * flatter heaps and better cache locality at the price of more comparisons
+ * per level; 4 is a good default.<br>
+ * <br>
+ * Elements must implement {@link Element} and can be part of at most one
+ * indexed heap at a time. Like {@link PriorityQueue}, the smallest element
+ * comes first. The iterator returns the elements in heap order and does not
+ * support removal.
+ *
+ * @param <E> the type of elements held in this queue
+ */
+public class IndexedHeap<E> extends AbstractQueue<E> {
+
+	public static final int DEFAULT_ARITY = 4;
+
+	/**
+	 * Elements of indexed heaps store their slot. A negative index means that
+	 * the element is not part of a heap.
+	 */
+	public interface Element {
+		int getHeapIndex();
+
+		void setHeapIndex(int index);
+	}
+
+	private final int arity;
+	private final Comparator<? super E> comparator;
+	private Object[] elements = new Object[16];
+	private int size;
+
+	public IndexedHeap(Comparator<? super E> comparator) {
+		this(DEFAULT_ARITY, comparator);
+	}
+
+	public IndexedHeap(int arity, Comparator<? super E> comparator) {
+		if (arity < 2)
+			throw new IllegalArgumentException("Heap arity must be at least 2.");
+		this.arity = arity;
+		this.comparator = comparator;
+	}
+
+	public Comparator<? super E> comparator() {
+		return comparator;
+	}
+
+	@Override
+	public boolean offer(E e) {
+		if (asElement(e).getHeapIndex() >= 0)
+			throw new IllegalStateException("Element is already part of a heap: " + e);
+		if (size == elements.length)
+			elements = Arrays.copyOf(elements, size * 2);
+		siftUp(size++, e);
+		return true;
+	}
+
+	@Override
+	public E poll() {
+		if (size == 0)
+			return null;
+		E result = elementAt(0);
+		removeAt(0);
+		return result;
+	}
+
+	@Override
+	public E peek() {
+		return size > 0 ? elementAt(0) : null;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		int index = indexOf(o);
+		return index >= 0;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		int index = indexOf(o);
+		if (index < 0)
+			return false;
+		removeAt(index);
+		return true;
+	}
+
+	/**
+	 * Restores the heap order after the key of the element has changed. Use
+	 * it for decrease-key as well as for increase-key operations.
+	 */
+	public void update(E e) {
+		int index = indexOf(e);
+		if (index < 0)
+			throw new NoSuchElementException("Element is not part of the heap: " + e);
+		siftUp(index, e);
+		siftDown(asElement(e).getHeapIndex(), e);
+	}
+
+	/**
+	 * Puts the new element into the slot of the old element and restores the
+	 * heap order. This is cheaper than removal followed by insertion.
+	 */
+	public void replace(E oldElement, E newElement) {
+		int index = indexOf(oldElement);
+		if (index < 0)
+			throw new NoSuchElementException("Element is not part of the heap: " + oldElement);
+		asElement(oldElement).setHeapIndex(-1);
+		siftUp(index, newElement);
+		siftDown(asElement(newElement).getHeapIndex(), newElement);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			asElement(elements[i]).setHeapIndex(-1);
+			elements[i] = null;
+		}
+		size = 0;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			@Override
+			public E next() {
+				if (next >= size)
+					throw new NoSuchElementException();
+				return elementAt(next++);
+			}
+		};
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	private int indexOf(Object o) {
+		if (!(o instanceof Element))
+			return -1;
+		int index = ((Element) o).getHeapIndex();
+		return index >= 0 && index < size && elements[index] == o ? index : -1;
+	}
+
+	private void removeAt(int index) {
+		asElement(elements[index]).setHeapIndex(-1);
+		E last = elementAt(--size);
+		elements[size] = null;
+		if (index < size) {
+			siftUp(index, last);
+			siftDown(asElement(last).getHeapIndex(), last);
+		}
+	}
+
+	/** Moves the element from the given slot upwards until its parent is not larger. */
+	private void siftUp(int index, E e) {
+		while (index > 0) {
+			int parent = (index - 1) / arity;
+			E p = elementAt(parent);
+			if (comparator.compare(e, p) >= 0)
+				break;
+			setAt(index, p);
+			index = parent;
+		}
+		setAt(index, e);
+	}
+
+	/** Moves the element from the given slot downwards until no child is smaller. */
+	private void siftDown(int index, E e) {
+		while (true) {
+			int first = index * arity + 1;
+			if (first >= size)
+				break;
+			int last = Math.min(first + arity, size);
+			int best = first;
+			for (int child = first + 1; child < last; child++)
+				if (comparator.compare(elementAt(child), elementAt(best)) < 0)
+					best = child;
+			E b = elementAt(best);
+			if (comparator.compare(b, e) >= 0)
+				break;
+			setAt(index, b);
+			index = best;
+		}
+		setAt(index, e);
+	}
+
+	private void setAt(int index, E e) {
+		elements[index] = e;
+		asElement(e).setHeapIndex(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	private E elementAt(int index) {
+		return (E) elements[index];
+	}
+
+	private static Element asElement(Object e) {
+		if (!(e instanceof Element))
+			throw new ClassCastException("Elements of indexed heaps must implement IndexedHeap.Element.");
+		return (Element) e;
+	}
+}
@@ -0,0 +1,34 @@
+package search.framework;
+
+/**
+ * Node which knows its slot in an {@link IndexedHeap} frontier. Node
+ * expanders only create indexed nodes for searches with an indexed heap
+ * frontier (see {@link NodeExpander#useIndexedNodes(boolean)}), so nodes of
+ * other searches do not pay for the additional field.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class IndexedNode<S, A> extends Node<S, A> implements IndexedHeap.Element {
+
+	// slot of the node in an indexed heap frontier, -1 if not part of one
+	private int heapIndex = -1;
+
+	public IndexedNode(S state) {
+		super(state);
+	}
+
+	public IndexedNode(S state, Node<S, A> parent, A action, double pathCost) {
+		super(state, parent, action, pathCost);
+	}
+
+	@Override
+	public int getHeapIndex() {
+		return heapIndex;
+	}
+
+	@Override
+	public void setHeapIndex(int index) {
+		heapIndex = index;
+	}
+}
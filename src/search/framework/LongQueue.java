@@ -0,0 +1,125 @@
+package search.framework;
+
+import search.framework.explored.LongHashExploredSet;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Queue of primitive <code>long</code> values such as packed state codes (see
+ * {@link search.framework.problem.PackedProblem}) or node handles. The values
+ * are stored in a growable ring buffer, so a queue entry costs 8 bytes instead
+ * of a boxed value plus a linked list entry. The queue works first-in-first-out
+ * or last-in-first-out.<br>
+ * <br>
+ * Optionally, the queue maintains an integrated duplicate index: values which
+ * are already present in the queue are not added again. Values can be added
+ * again after they have been removed. The queue is not thread safe.
+ */
+public class LongQueue {
+
+	private final boolean lifo;
+	private final LongHashExploredSet<Long> index;
+	private long[] elements = new long[16];
+	// slot of the first element (FIFO only)
+	private int head;
+	private int size;
+
+	/**
+	 * Creates a queue.
+	 *
+	 * @param lifo
+	 *            true for last-in-first-out, false for first-in-first-out.
+	 * @param rejectDuplicates
+	 *            if true, values already present in the queue are not added.
+	 */
+	public LongQueue(boolean lifo, boolean rejectDuplicates) {
+		this.lifo = lifo;
+		index = rejectDuplicates ? new LongHashExploredSet<>(Long::longValue) : null;
+	}
+
+	/**
+	 * Adds the value and returns true, or returns false if duplicates are
+	 * rejected and the value is already present.
+	 */
+	public boolean add(long value) {
+		if (index != null && !index.addCode(value))
+			return false;
+		if (size == elements.length)
+			grow();
+		elements[(head + size) & (elements.length - 1)] = value;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Removes and returns the next value.
+	 *
+	 * @throws NoSuchElementException
+	 *             if the queue is empty.
+	 */
+	public long remove() {
+		long result = peek();
+		if (!lifo)
+			head = (head + 1) & (elements.length - 1);
+		size--;
+		if (index != null)
+			index.removeCode(result);
+		return result;
+	}
+
+	/**
+	 * Returns the next value without removing it.
+	 *
+	 * @throws NoSuchElementException
+	 *             if the queue is empty.
+	 */
+	public long peek() {
+		if (size == 0)
+			throw new NoSuchElementException("Queue is empty.");
+		return lifo ? elements[(head + size - 1) & (elements.length - 1)] : elements[head];
+	}
+
+	/**
+	 * Returns true if the value is present. Takes constant time with duplicate
+	 * index, linear time otherwise.
+	 */
+	public boolean contains(long value) {
+		if (index != null)
+			return index.containsCode(value);
+		for (int i = 0; i < size; i++)
+			if (elements[(head + i) & (elements.length - 1)] == value)
+				return true;
+		return false;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/** Returns the number of bytes allocated for values and duplicate index. */
+	public long getMemoryUsage() {
+		return (long) elements.length * Long.BYTES + (index != null ? index.getMemoryUsage() : 0);
+	}
+
+	public void clear() {
+		head = 0;
+		size = 0;
+		if (index != null)
+			index.clear();
+	}
+
+	/** Doubles the capacity and moves the values to the beginning of the buffer. */
+	private void grow() {
+		if (elements.length == 1 << 30)
+			throw new IllegalStateException("Queue is full.");
+		long[] newElements = new long[elements.length * 2];
+		System.arraycopy(elements, head, newElements, 0, elements.length - head);
+		System.arraycopy(elements, 0, newElements, elements.length - head, head);
+		elements = newElements;
+		head = 0;
+	}
+}
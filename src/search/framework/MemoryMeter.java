@@ -0,0 +1,57 @@
+package search.framework;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Memory accounting for searches. Allocations are measured with the
+ * per-thread allocation counter of the JVM, which, in contrast to
+ * <code>totalMemory() - freeMemory()</code>, does not depend on garbage
+ * collection. Retained memory cannot be measured cheaply, so it is estimated
+ * from the peak number of live nodes and a size per node.
+ */
+public final class MemoryMeter {
+
+	/**
+	 * Estimated size of a {@link Node} object with compressed references,
+	 * excluding state and action: 12 bytes header, three references, and path
+	 * cost. An {@link IndexedNode} needs 8 bytes more for its heap slot and
+	 * padding.
+	 */
+	public static final int NODE_BYTES = 32;
+
+	private static final com.sun.management.ThreadMXBean THREAD_BEAN = createThreadBean();
+
+	private MemoryMeter() {
+	}
+
+	/** Returns true if the JVM supports measuring per-thread allocations. */
+	public static boolean isAllocationMeasurable() {
+		return THREAD_BEAN != null;
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread since it
+	 * was started, or -1 if the JVM does not support measuring it.
+	 */
+	public static long getThreadAllocatedBytes() {
+		return THREAD_BEAN != null ? THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+	}
+
+	private static com.sun.management.ThreadMXBean createThreadBean() {
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean result = (com.sun.management.ThreadMXBean) bean;
+				if (result.isThreadAllocatedMemorySupported()) {
+					if (!result.isThreadAllocatedMemoryEnabled())
+						result.setThreadAllocatedMemoryEnabled(true);
+					return result;
+				}
+			}
+		} catch (UnsupportedOperationException | SecurityException | LinkageError e) {
+			// no management support, allocations are not measured
+		}
+		return null;
+	}
+}
@@ -1,64 +1,167 @@
 package search.framework;
 
-import java.util.Hashtable;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Stores key-value pairs for efficiency analysis.
- * 
+ * Stores key-value pairs for efficiency analysis.<br>
+ * <br>
+ * Values are kept in typed slots holding a primitive <code>long</code> or
+ * <code>double</code>. Hot code should obtain a {@link Counter} or
+ * {@link Gauge} handle once and update it directly, which avoids the name
+ * lookup of the string based methods.<br>
+ * <br>
+ * Metrics are single-threaded: slots are plain fields without
+ * synchronization, so values must only be updated by the searching thread.
+ * Parallel searches (e.g. {@link search.informed.BeamSearch} and
+ * {@link search.uninformed.LayeredBreadthFirstSearch}) update them from the
+ * calling thread after their workers have finished a layer. Other threads
+ * may see stale values while a search runs.
+ *
  * @author Ravi Mohan
  * @author Ruediger Lunde
  */
 public class Metrics {
-	private Hashtable<String, String> hash;
 
-	public Metrics() {
-		this.hash = new Hashtable<String, String>();
+	/** Handle of a monotonic counter. */
+	public interface Counter {
+		void increment();
+
+		void add(long delta);
+
+		long get();
+	}
+
+	/** Handle of a value which is set to the current level. */
+	public interface Gauge {
+		void set(long value);
+
+		/** Sets the value if it is larger than the current value. */
+		void updateMax(long value);
+
+		long get();
+	}
+
+	private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+	/** Returns the counter handle of the metric, which is created with value 0 if necessary. */
+	public Counter counter(String name) {
+		return slot(name);
+	}
+
+	/** Returns the gauge handle of the metric, which is created with value 0 if necessary. */
+	public Gauge gauge(String name) {
+		return slot(name);
 	}
 
 	public void set(String name, int i) {
-		hash.put(name, Integer.toString(i));
+		slot(name).set(i);
 	}
 
 	public void set(String name, double d) {
-		hash.put(name, Double.toString(d));
+		slot(name).setDouble(d);
 	}
 
 	public void incrementInt(String name) {
-		set(name, getInt(name) + 1);
+		slot(name).increment();
 	}
 
 	public void set(String name, long l) {
-		hash.put(name, Long.toString(l));
+		slot(name).set(l);
 	}
 
 	public int getInt(String name) {
-		String value = hash.get(name);
-		return value != null ? Integer.parseInt(value) : 0;
+		Slot slot = slots.get(name);
+		return slot != null ? (int) slot.get() : 0;
 	}
 
 	public double getDouble(String name) {
-		String value = hash.get(name);
-		return value != null ? Double.parseDouble(value) : Double.NaN;
+		Slot slot = slots.get(name);
+		return slot != null ? slot.getDouble() : Double.NaN;
 	}
 
 	public long getLong(String name) {
-		String value = hash.get(name);
-		return value != null ? Long.parseLong(value) : 0l;
+		Slot slot = slots.get(name);
+		return slot != null ? slot.get() : 0l;
 	}
 
 	public String get(String name) {
-		return hash.get(name);
+		Slot slot = slots.get(name);
+		return slot != null ? slot.toString() : null;
 	}
 
 	public Set<String> keySet() {
-		return hash.keySet();
+		return slots.keySet();
 	}
 
 	/** Sorts the key-value pairs by key names and formats them as equations. */
 	public String toString() {
-		TreeMap<String, String> map = new TreeMap<String, String>(hash);
+		TreeMap<String, String> map = new TreeMap<String, String>();
+		for (Map.Entry<String, Slot> entry : slots.entrySet())
+			map.put(entry.getKey(), entry.getValue().toString());
 		return map.toString();
 	}
+
+	private Slot slot(String name) {
+		Slot result = slots.get(name);
+		if (result == null)
+			result = slots.computeIfAbsent(name, n -> new Slot());
+		return result;
+	}
+
+	/**
+	 * Value of a metric, integral unless it was last set to a double. Double
+	 * values are also kept truncated, so counting continues from them.
+	 */
+	private static class Slot implements Counter, Gauge {
+		long value;
+		double doubleValue;
+		boolean isDouble;
+
+		@Override
+		public void increment() {
+			isDouble = false;
+			value++;
+		}
+
+		@Override
+		public void add(long delta) {
+			isDouble = false;
+			value += delta;
+		}
+
+		@Override
+		public void set(long value) {
+			isDouble = false;
+			this.value = value;
+		}
+
+		@Override
+		public void updateMax(long value) {
+			if (value > get())
+				set(value);
+		}
+
+		@Override
+		public long get() {
+			return value;
+		}
+
+		void setDouble(double value) {
+			doubleValue = value;
+			this.value = (long) value;
+			isDouble = true;
+		}
+
+		double getDouble() {
+			return isDouble ? doubleValue : get();
+		}
+
+		@Override
+		public String toString() {
+			return isDouble ? Double.toString(doubleValue) : Long.toString(get());
+		}
+	}
 }
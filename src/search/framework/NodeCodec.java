@@ -0,0 +1,77 @@
+package search.framework;
+
+import search.framework.problem.PackedProblem;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Converts nodes of packed state spaces (see {@link PackedProblem}) to records
+ * of 24 bytes for {@link SpillingBucketQueue}s: state code, path cost, parent
+ * handle, and action handle. Parents and actions of spilled nodes are kept in
+ * tables and referenced by handles. Actions are identified by
+ * <code>equals</code>, so problems with a small set of actions need only a few
+ * table entries. The parent table keeps every parent of a spilled node
+ * reachable until {@link #clear()}, even after the search has discarded its
+ * other children. This limits the memory saved by spilling: the parent nodes
+ * and their states stay on the heap, only the spilled nodes themselves move
+ * to disk.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class NodeCodec<S, A> implements SpillingBucketQueue.Codec<Node<S, A>> {
+
+	public static final int RECORD_SIZE = Long.BYTES + Double.BYTES + 2 * Integer.BYTES;
+	private static final int NONE = -1;
+
+	private final PackedProblem<S> problem;
+	private final List<Node<S, A>> parents = new ArrayList<>();
+	private final Map<Node<S, A>, Integer> parentHandles = new IdentityHashMap<>();
+	private final List<A> actions = new ArrayList<>();
+	private final Map<A, Integer> actionHandles = new HashMap<>();
+
+	public NodeCodec(PackedProblem<S> problem) {
+		this.problem = problem;
+	}
+
+	@Override
+	public int getRecordSize() {
+		return RECORD_SIZE;
+	}
+
+	@Override
+	public void write(Node<S, A> node, ByteBuffer buffer) {
+		buffer.putLong(problem.encode(node.getState()));
+		buffer.putDouble(node.getPathCost());
+		buffer.putInt(getHandle(node.getParent(), parents, parentHandles));
+		buffer.putInt(getHandle(node.getAction(), actions, actionHandles));
+	}
+
+	@Override
+	public Node<S, A> read(ByteBuffer buffer) {
+		S state = problem.decode(buffer.getLong());
+		double pathCost = buffer.getDouble();
+		int parent = buffer.getInt();
+		int action = buffer.getInt();
+		return new Node<>(state, parent != NONE ? parents.get(parent) : null,
+				action != NONE ? actions.get(action) : null, pathCost);
+	}
+
+	@Override
+	public void clear() {
+		parents.clear();
+		parentHandles.clear();
+		actions.clear();
+		actionHandles.clear();
+	}
+
+	private static <T> int getHandle(T object, List<T> table, Map<T, Integer> handles) {
+		if (object == null)
+			return NONE;
+		return handles.computeIfAbsent(object, o -> {
+			table.add(o);
+			return table.size() - 1;
+		});
+	}
+}
@@ -1,9 +1,11 @@
 package search.framework;
 
 import search.framework.problem.Problem;
+import search.framework.problem.SuccessorVisitor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 
 /**
@@ -19,6 +21,8 @@ import java.util.function.Consumer;
 public class NodeExpander<S, A> {
 
 	protected boolean useParentLinks = true;
+	protected boolean useIndexedNodes;
+	protected SearchProfiler profiler = SearchProfiler.DISABLED;
 
 	/**
 	 * Modifies {@link #useParentLinks} and returns this node expander. When
@@ -30,6 +34,37 @@ public class NodeExpander<S, A> {
 		return this;
 	}
 
+	public boolean isUsingParentLinks() {
+		return useParentLinks;
+	}
+
+	/**
+	 * Modifies {@link #useIndexedNodes} and returns this node expander. Nodes
+	 * of a search with an {@link IndexedHeap} frontier must be
+	 * {@link IndexedNode}s; other searches save the heap slot field.
+	 */
+	public NodeExpander useIndexedNodes(boolean s) {
+		useIndexedNodes = s;
+		return this;
+	}
+
+	public boolean isUsingIndexedNodes() {
+		return useIndexedNodes;
+	}
+
+	/**
+	 * Attaches a profiler, which times expansions as successor generation.
+	 * Searches using this node expander report their phases to the same
+	 * profiler.
+	 */
+	public void setProfiler(SearchProfiler profiler) {
+		this.profiler = profiler != null ? profiler : SearchProfiler.DISABLED;
+	}
+
+	public SearchProfiler getProfiler() {
+		return profiler;
+	}
+
 	///////////////////////////////////////////////////////////////////////
 	// expanding nodes
 
@@ -37,7 +72,7 @@ public class NodeExpander<S, A> {
 	 * Factory method, which creates a root node for the specified state.
 	 */
 	public Node<S, A> createRootNode(S state) {
-		return new Node<>(state);
+		return useIndexedNodes ? new IndexedNode<>(state) : new Node<>(state);
 	}
 
 	/**
@@ -48,7 +83,8 @@ public class NodeExpander<S, A> {
 	 */
 	public Node<S, A> createNode(S state, Node<S, A> parent, A action, double stepCost) {
 		Node<S, A> p = useParentLinks ? parent : null;
-		return new Node<>(state, p, action, parent.getPathCost() + stepCost);
+		double pathCost = parent.getPathCost() + stepCost;
+		return useIndexedNodes ? new IndexedNode<>(state, p, action, pathCost) : new Node<>(state, p, action, pathCost);
 	}
 
 	/**
@@ -64,18 +100,112 @@ public class NodeExpander<S, A> {
 	 *         specified problem.
 	 */
 	public List<Node<S, A>> expand(Node<S, A> node, Problem<S, A> problem) {
-		List<Node<S, A>> successors = new ArrayList<>();
+		return expand(node, problem, problem.getActions(node.getState()));
+	}
 
-		for (A action : problem.getActions(node.getState())) {
+	/**
+	 * Returns the children obtained from applying the specified actions to the
+	 * specified node. Partial expansion uses this to generate only the
+	 * children of interest.
+	 *
+	 * @param node
+	 *            the node to expand
+	 * @param problem
+	 *            the problem the specified node is within.
+	 * @param actions
+	 *            actions applicable in the state of the node.
+	 *
+	 * @return the children obtained from applying the actions.
+	 */
+	public List<Node<S, A>> expand(Node<S, A> node, Problem<S, A> problem, List<A> actions) {
+		List<Node<S, A>> successors = new ArrayList<>();
+		profiler.start(SearchProfiler.Phase.SUCCESSORS);
+		for (A action : actions) {
 			S successorState = problem.getResult(node.getState(), action);
 
 			double stepCost = problem.getStepCosts(node.getState(), action, successorState);
 			successors.add(createNode(successorState, node, action, stepCost));
 		}
+		profiler.stop();
 		notifyNodeListeners(node);
 		return successors;
 	}
 
+	/**
+	 * Passes the children obtained from expanding the specified node in the
+	 * specified problem one by one to the sink. In contrast to
+	 * {@link #expand(Node, Problem)}, no list is created. Callers should reuse
+	 * the sink for all expansions.
+	 *
+	 * @param node
+	 *            the node to expand
+	 * @param problem
+	 *            the problem the specified node is within.
+	 * @param sink
+	 *            receives the children.
+	 */
+	public void expand(Node<S, A> node, Problem<S, A> problem, Consumer<Node<S, A>> sink) {
+		expand(node, problem, sink, null);
+	}
+
+	/**
+	 * Like {@link #expand(Node, Problem, Consumer)}, but stops generating
+	 * children as soon as <code>done</code> returns true, e.g. after a goal
+	 * was found among them. Problems which do not override
+	 * {@link Problem#forEachSuccessor(Object, SuccessorVisitor)} still create
+	 * their action list, but no further successor states and nodes.<br>
+	 * <br>
+	 * The visitor passed to the problem is reused for all expansions, so this
+	 * method must not be called concurrently on the same node expander.
+	 *
+	 * @param node
+	 *            the node to expand
+	 * @param problem
+	 *            the problem the specified node is within.
+	 * @param sink
+	 *            receives the children.
+	 * @param done
+	 *            returns true if no further children are needed, may be null.
+	 */
+	public void expand(Node<S, A> node, Problem<S, A> problem, Consumer<Node<S, A>> sink, BooleanSupplier done) {
+		Node<S, A> prevParent = visitor.parent;
+		Consumer<Node<S, A>> prevSink = visitor.sink;
+		BooleanSupplier prevDone = visitor.done;
+		visitor.parent = node;
+		visitor.sink = sink;
+		visitor.done = done;
+		profiler.start(SearchProfiler.Phase.SUCCESSORS);
+		try {
+			problem.forEachSuccessor(node.getState(), visitor);
+		} finally {
+			profiler.stop();
+			// restores the state of an enclosing expansion, if any
+			visitor.parent = prevParent;
+			visitor.sink = prevSink;
+			visitor.done = prevDone;
+		}
+		notifyNodeListeners(node);
+	}
+
+	/** Visitor which creates nodes for the successors of the parent. */
+	private final ChildVisitor visitor = new ChildVisitor();
+
+	private class ChildVisitor implements SuccessorVisitor<S, A> {
+		Node<S, A> parent;
+		Consumer<Node<S, A>> sink;
+		BooleanSupplier done;
+
+		@Override
+		public void visit(A action, S successor, double stepCosts) {
+			sink.accept(createNode(successor, parent, action, stepCosts));
+		}
+
+		@Override
+		public boolean isDone() {
+			return done != null && done.getAsBoolean();
+		}
+	}
+
 	///////////////////////////////////////////////////////////////////////
 	// progress tracking
 
@@ -0,0 +1,146 @@
+package search.framework;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.*;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Allocator for native (off-heap) memory based on direct {@link ByteBuffer}s.
+ * Data structures which allocate their storage from an arena hold large
+ * numbers of fixed-width records without burdening the garbage collector, so
+ * heap size and GC pauses stay flat regardless of the data size. All buffers
+ * of an arena are released together by {@link #close()}; afterwards the
+ * arena cannot be used anymore.<br>
+ * <br>
+ * Released buffers are freed immediately with
+ * <code>sun.misc.Unsafe.invokeCleaner</code> of module
+ * <code>jdk.unsupported</code>, so the native footprint follows
+ * {@link #getAllocatedBytes()}. A released buffer must not be accessed
+ * anymore, which may crash the JVM. If the JVM does not provide the cleaner
+ * (see {@link #isReleaseDeterministic()}), released memory is only returned
+ * when the garbage collector reclaims the buffer objects. The total amount
+ * is limited by <code>-XX:MaxDirectMemorySize</code>. Arenas are not thread
+ * safe.
+ */
+public class OffHeapArena implements AutoCloseable {
+
+	// Unsafe.invokeCleaner bound to the Unsafe instance, null if not available
+	private static final MethodHandle CLEANER = findCleaner();
+
+	// maps each buffer handed out to the direct buffer which owns its memory
+	private final Map<Buffer, ByteBuffer> buffers = new IdentityHashMap<>();
+	private long allocatedBytes;
+	private long maxAllocatedBytes;
+	private boolean closed;
+
+	/** Allocates a zero-filled buffer in native byte order. */
+	public ByteBuffer allocate(int bytes) {
+		ByteBuffer buffer = allocateDirect(bytes);
+		return register(buffer, buffer);
+	}
+
+	/** Allocates a zero-filled buffer for the specified number of longs. */
+	public LongBuffer allocateLongs(int count) {
+		ByteBuffer buffer = allocateDirect(checkedBytes(count, Long.BYTES));
+		return register(buffer.asLongBuffer(), buffer);
+	}
+
+	/** Allocates a zero-filled buffer for the specified number of ints. */
+	public IntBuffer allocateInts(int count) {
+		ByteBuffer buffer = allocateDirect(checkedBytes(count, Integer.BYTES));
+		return register(buffer.asIntBuffer(), buffer);
+	}
+
+	/**
+	 * Releases a single buffer allocated by this arena, e.g. after it was
+	 * replaced by a larger one. The buffer must not be accessed anymore.
+	 */
+	public void free(Buffer buffer) {
+		ByteBuffer owner = buffers.remove(buffer);
+		if (owner != null) {
+			allocatedBytes -= owner.capacity();
+			release(owner);
+		}
+	}
+
+	/** Returns the number of bytes currently allocated. */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/** Returns the maximum number of bytes allocated at the same time. */
+	public long getMaxAllocatedBytes() {
+		return maxAllocatedBytes;
+	}
+
+	/**
+	 * Returns true if released memory is freed immediately. Otherwise, it is
+	 * freed by the garbage collector, and the native footprint may exceed
+	 * {@link #getAllocatedBytes()}.
+	 */
+	public static boolean isReleaseDeterministic() {
+		return CLEANER != null;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/** Releases all buffers of the arena, which must not be accessed anymore. */
+	@Override
+	public void close() {
+		for (ByteBuffer owner : buffers.values())
+			release(owner);
+		buffers.clear();
+		allocatedBytes = 0;
+		closed = true;
+	}
+
+	private ByteBuffer allocateDirect(int bytes) {
+		if (closed)
+			throw new IllegalStateException("Arena is closed.");
+		return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+	}
+
+	private <B extends Buffer> B register(B buffer, ByteBuffer owner) {
+		buffers.put(buffer, owner);
+		allocatedBytes += owner.capacity();
+		maxAllocatedBytes = Math.max(maxAllocatedBytes, allocatedBytes);
+		return buffer;
+	}
+
+	private static void release(ByteBuffer buffer) {
+		if (CLEANER == null)
+			return;
+		try {
+			CLEANER.invokeExact(buffer);
+		} catch (Throwable e) {
+			throw new IllegalStateException("Cannot release direct buffer.", e);
+		}
+	}
+
+	private static MethodHandle findCleaner() {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			return MethodHandles.lookup()
+					.findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+					.bindTo(field.get(null));
+		} catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+			// no cleaner, buffers are freed by the garbage collector
+			return null;
+		}
+	}
+
+	private static int checkedBytes(int count, int elementBytes) {
+		long bytes = (long) count * elementBytes;
+		if (count < 0 || bytes > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Unsupported buffer size: " + count);
+		return (int) bytes;
+	}
+}
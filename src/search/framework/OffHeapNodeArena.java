@@ -0,0 +1,107 @@
+package search.framework;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Node arena whose records are stored in native memory allocated from an
+ * {@link OffHeapArena}. Each node is a record of {@link #BYTES_PER_NODE}
+ * bytes (state, parent, path cost, evaluation, move) in a chunk of fixed
+ * size. The garbage collector never sees the nodes, so even arenas with
+ * hundreds of millions of nodes do not cause GC pauses. Values and handles
+ * behave exactly as in {@link NodeArena}.
+ */
+public class OffHeapNodeArena extends NodeArena {
+
+	private static final int STATE_OFFSET = 0;
+	private static final int PARENT_OFFSET = STATE_OFFSET + Long.BYTES;
+	private static final int G_OFFSET = PARENT_OFFSET + Integer.BYTES;
+	private static final int F_OFFSET = G_OFFSET + Short.BYTES;
+	private static final int MOVE_OFFSET = F_OFFSET + Short.BYTES;
+
+	private final OffHeapArena memory;
+	private final List<ByteBuffer> chunks = new ArrayList<>();
+	private int size;
+
+	public OffHeapNodeArena(OffHeapArena memory) {
+		this.memory = memory;
+	}
+
+	@Override
+	public int add(long state, int parent, int move, int g, int f) {
+		checkValue(g);
+		checkValue(f);
+		if (size == Integer.MAX_VALUE)
+			throw new IllegalStateException("Node arena is full.");
+		int handle = size++;
+		if (handle >>> CHUNK_BITS == chunks.size())
+			chunks.add(memory.allocate(CHUNK_SIZE * BYTES_PER_NODE));
+		ByteBuffer chunk = chunks.get(handle >>> CHUNK_BITS);
+		int offset = (handle & CHUNK_MASK) * BYTES_PER_NODE;
+		chunk.putLong(offset + STATE_OFFSET, state);
+		chunk.putInt(offset + PARENT_OFFSET, parent);
+		chunk.putShort(offset + G_OFFSET, (short) g);
+		chunk.putShort(offset + F_OFFSET, (short) f);
+		chunk.put(offset + MOVE_OFFSET, (byte) move);
+		return handle;
+	}
+
+	@Override
+	public long getState(int handle) {
+		return chunk(handle).getLong(offset(handle) + STATE_OFFSET);
+	}
+
+	@Override
+	public int getParent(int handle) {
+		return chunk(handle).getInt(offset(handle) + PARENT_OFFSET);
+	}
+
+	@Override
+	public int getMove(int handle) {
+		return chunk(handle).get(offset(handle) + MOVE_OFFSET);
+	}
+
+	@Override
+	public int getPathCost(int handle) {
+		return chunk(handle).getShort(offset(handle) + G_OFFSET) & MAX_VALUE;
+	}
+
+	@Override
+	public int getEvaluation(int handle) {
+		return chunk(handle).getShort(offset(handle) + F_OFFSET) & MAX_VALUE;
+	}
+
+	@Override
+	public void setEvaluation(int handle, int f) {
+		checkValue(f);
+		chunk(handle).putShort(offset(handle) + F_OFFSET, (short) f);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public long getAllocatedBytes() {
+		return (long) chunks.size() * CHUNK_SIZE * BYTES_PER_NODE;
+	}
+
+	/** Removes all nodes and returns their memory to the arena. */
+	@Override
+	public void clear() {
+		for (ByteBuffer chunk : chunks)
+			memory.free(chunk);
+		chunks.clear();
+		size = 0;
+	}
+
+	private ByteBuffer chunk(int handle) {
+		return chunks.get(handle >>> CHUNK_BITS);
+	}
+
+	private static int offset(int handle) {
+		return (handle & CHUNK_MASK) * BYTES_PER_NODE;
+	}
+}
@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Base class for all search algorithms which use a queue to manage not yet
@@ -23,6 +24,8 @@ import java.util.function.Consumer;
 public abstract class QueueBasedSearch<S, A> implements SearchForActions<S, A>, SearchForStates<S, A> {
 	protected final QueueSearch<S, A> impl;
 	private final Queue<Node<S, A>> frontier;
+	private ToDoubleFunction<Node<S, A>> eventEvalFn;
+	private ToDoubleFunction<Node<S, A>> eventHeuristicFn;
 
 	protected QueueBasedSearch(QueueSearch<S, A> impl, Queue<Node<S, A>> queue) {
 		this.impl = impl;
@@ -32,17 +35,30 @@ public abstract class QueueBasedSearch<S, A> implements SearchForActions<S, A>,
 	@Override
 	public Optional<List<A>> findActions(Problem<S, A> p) {
 		impl.getNodeExpander().useParentLinks(true);
-		frontier.clear();
-		Optional<Node<S, A>> node = impl.findNode(p, frontier);
-		return SearchUtils.toActions(node);
+		return SearchUtils.toActions(findNode(p));
 	}
 
 	@Override
 	public Optional<S> findState(Problem<S, A> p) {
 		impl.getNodeExpander().useParentLinks(false);
+		return SearchUtils.toState(findNode(p));
+	}
+
+	/**
+	 * Sets the functions which provide f- and h-values of sampled flight
+	 * recorder events. They are passed to the implementation whenever a
+	 * search starts, so implementations can be shared between searches.
+	 */
+	protected void setEventFunctions(ToDoubleFunction<Node<S, A>> evalFn, ToDoubleFunction<Node<S, A>> h) {
+		eventEvalFn = evalFn;
+		eventHeuristicFn = h;
+	}
+
+	private Optional<Node<S, A>> findNode(Problem<S, A> p) {
+		impl.getEventLabels().setDefaultAlgorithm(getClass().getSimpleName());
+		impl.setEventFunctions(eventEvalFn, eventHeuristicFn);
 		frontier.clear();
-		Optional<Node<S, A>> node = impl.findNode(p, frontier);
-		return SearchUtils.toState(node);
+		return impl.findNode(p, frontier);
 	}
 
 	@Override
@@ -1,6 +1,9 @@
 package search.framework;
 
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
 
 /**
  * Factory class for queues. Changes made here will affect all queue based
@@ -11,14 +14,15 @@ import java.util.*;
 public class QueueFactory {
 
 	/**
-	 * Returns a {@link LinkedList}.
+	 * Returns an {@link ArrayDeque}, a growable ring buffer. In contrast to
+	 * {@link LinkedList}, no entry object is allocated per element.
 	 */
 	public static <E> Queue<E> createFifoQueue() {
-		return new LinkedList<E>();
+		return new ArrayDeque<E>();
 	}
 
 	/**
-	 * Returns a {@link LinkedList} which is extended by a {@link HashSet} for efficient containment checks. Elements
+	 * Returns an {@link ArrayDeque} which is extended by a {@link HashSet} for efficient containment checks. Elements
 	 * are only added if they are not already present in the queue. Use only queue methods for access!
 	 */
 	public static <E> Queue<E> createFifoQueueNoDuplicates() {
@@ -26,10 +30,33 @@ public class QueueFactory {
 	}
 
 	/**
-	 * Returns a Last-in-first-out (Lifo) view on a {@link LinkedList}.
+	 * Returns a Last-in-first-out (Lifo) view on an {@link ArrayDeque}.
 	 */
 	public static <E> Queue<E> createLifoQueue() {
-		return Collections.asLifoQueue(new LinkedList<E>());
+		return Collections.asLifoQueue(new ArrayDeque<E>());
+	}
+
+	/**
+	 * Returns a first-in-first-out queue of primitive longs, e.g. packed state
+	 * codes or node handles.
+	 */
+	public static LongQueue createLongFifoQueue() {
+		return new LongQueue(false, false);
+	}
+
+	/**
+	 * Returns a first-in-first-out queue of primitive longs which rejects
+	 * values already present in the queue.
+	 */
+	public static LongQueue createLongFifoQueueNoDuplicates() {
+		return new LongQueue(false, true);
+	}
+
+	/**
+	 * Returns a last-in-first-out queue of primitive longs.
+	 */
+	public static LongQueue createLongLifoQueue() {
+		return new LongQueue(true, false);
 	}
 
 	/**
@@ -40,7 +67,66 @@ public class QueueFactory {
 		return new PriorityQueue<E>(11, comparator);
 	}
 
-	private static class FifoQueueWithHashSet<E> extends LinkedList<E> implements Queue<E> {
+	/**
+	 * Returns an {@link IndexedHeap} with the default arity. Its elements must
+	 * implement {@link IndexedHeap.Element}; queue searches create
+	 * {@link IndexedNode}s for such a frontier. Note that the smallest element
+	 * comes first!
+	 */
+	public static <E> Queue<E> createIndexedPriorityQueue(Comparator<? super E> comparator) {
+		return new IndexedHeap<E>(comparator);
+	}
+
+	/**
+	 * Returns an {@link IndexedHeap} with the specified arity. Indexed heaps
+	 * support removal of frontier nodes in logarithmic time, which pays off
+	 * for {@link search.framework.qsearch.GraphSearchReducedFrontier}. Note
+	 * that the smallest element comes first!
+	 */
+	public static <E> Queue<E> createIndexedPriorityQueue(int arity, Comparator<? super E> comparator) {
+		return new IndexedHeap<E>(arity, comparator);
+	}
+
+	/**
+	 * Returns a {@link BucketQueue}. Priorities and secondary keys must be
+	 * non-negative integers. Note that the smallest element comes first!
+	 */
+	public static <E> Queue<E> createBucketQueue(ToIntFunction<? super E> priorityFn,
+												 ToIntFunction<? super E> secondaryFn,
+												 BucketQueue.TieBreaking tieBreaking) {
+		return new BucketQueue<E>(priorityFn, secondaryFn, tieBreaking);
+	}
+
+	/**
+	 * Returns a {@link BucketQueue} for nodes. The evaluation function must
+	 * return non-negative integral values. The path cost serves as secondary
+	 * key.
+	 */
+	public static <S, A> Queue<Node<S, A>> createBucketQueue(ToDoubleFunction<? super Node<S, A>> evalFn,
+															 BucketQueue.TieBreaking tieBreaking) {
+		return createBucketQueue(n -> toBucketIndex(evalFn.applyAsDouble(n)),
+				n -> toBucketIndex(n.getPathCost()), tieBreaking);
+	}
+
+	/**
+	 * Returns a bucket queue of nodes which spills the nodes with the highest
+	 * evaluation to disk when more than <code>memoryBudget</code> nodes are
+	 * queued. Evaluation function values must be non-negative integers.
+	 */
+	public static <S, A> Queue<Node<S, A>> createSpillingBucketQueue(ToDoubleFunction<? super Node<S, A>> evalFn,
+																	 SpillingBucketQueue.Codec<Node<S, A>> codec,
+																	 int memoryBudget, Path directory) {
+		return new SpillingBucketQueue<>(n -> toBucketIndex(evalFn.applyAsDouble(n)), codec, memoryBudget, directory);
+	}
+
+	private static int toBucketIndex(double value) {
+		int result = (int) value;
+		if (result != value)
+			throw new IllegalArgumentException("Bucket queues require integral keys: " + value);
+		return result;
+	}
+
+	private static class FifoQueueWithHashSet<E> extends ArrayDeque<E> implements Queue<E> {
 		private HashSet<E> elements = new HashSet<>();
 
 		@Override
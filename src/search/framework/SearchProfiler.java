@@ -0,0 +1,299 @@
+package search.framework;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Sampling profiler for the phases of a search loop. The loop calls
+ * {@link #sample()} once per expansion, and every n-th expansion is measured:
+ * all phases of it are bracketed by {@link #start(Phase)} and {@link #stop()}
+ * and timed with {@link System#nanoTime()}. For other expansions, both calls
+ * only check a flag. Phases may nest, e.g. heuristic evaluation within
+ * frontier insertion, and each phase is charged with its exclusive time, so
+ * the phase times of an expansion add up to its total time.<br>
+ * <br>
+ * The profiler keeps a breakdown for the current search, from which total
+ * phase times are extrapolated, and an aggregated histogram of sampled phase
+ * durations over all searches. With the default interval of 64, overhead is
+ * well below 2% of search time.<br>
+ * <br>
+ * Profilers are attached to a {@link NodeExpander}, which makes them
+ * available to {@link search.framework.qsearch.QueueSearch} and heuristic
+ * wrappers created by {@link #timeHeuristic(ToDoubleFunction)}. The default
+ * {@link #DISABLED} profiler never samples. Profilers are not thread safe.
+ */
+public class SearchProfiler {
+
+	public enum Phase {
+		GOAL_TEST("GoalTest"), SUCCESSORS("Successors"), HEURISTIC("Heuristic"),
+		FRONTIER_INSERT("FrontierInsert"), FRONTIER_REMOVE("FrontierRemove"),
+		DUPLICATE_CHECK("DuplicateCheck");
+
+		private final String name;
+
+		Phase(String name) {
+			this.name = name;
+		}
+
+		/** Returns the name of the metric holding the estimated nanoseconds of the phase. */
+		public String getMetricName() {
+			return "time" + name;
+		}
+	}
+
+	private static final Phase[] PHASES = Phase.values();
+	private static final int MAX_DEPTH = 16;
+
+	public static final int DEFAULT_SAMPLE_INTERVAL = 64;
+
+	/** Profiler which never samples. */
+	public static final SearchProfiler DISABLED = new SearchProfiler(0);
+
+	/** Number of histogram buckets, bucket i counts durations in [2^i, 2^(i+1)) ns. */
+	public static final int HISTOGRAM_BUCKETS = 40;
+
+
+	private final int sampleInterval;
+	private long countdown;
+	private boolean active;
+
+	// stack of open phases with their exclusive time so far
+	private final Phase[] stack = new Phase[MAX_DEPTH];
+	private final long[] stackNanos = new long[MAX_DEPTH];
+	private int depth;
+	// phases started beyond the maximum depth, which are not measured
+	private int ignoredDepth;
+	private long lastMark;
+
+	// current search
+	private final long[] searchNanos = new long[PHASES.length];
+	private long expansions;
+	private long sampledExpansions;
+
+	// all searches
+	private final long[][] histogram = new long[PHASES.length][HISTOGRAM_BUCKETS];
+	private final long[] totalNanos = new long[PHASES.length];
+	private long searches;
+
+	/** Creates a profiler which measures every 64th expansion. */
+	public SearchProfiler() {
+		this(DEFAULT_SAMPLE_INTERVAL);
+	}
+
+	/**
+	 * Creates a profiler.
+	 *
+	 * @param sampleInterval
+	 *            n if every n-th expansion is measured, 1 for all, 0 for none.
+	 */
+	public SearchProfiler(int sampleInterval) {
+		if (sampleInterval < 0)
+			throw new IllegalArgumentException("Sample interval must not be negative.");
+		this.sampleInterval = sampleInterval;
+	}
+
+	public boolean isEnabled() {
+		return sampleInterval > 0;
+	}
+
+	/** Resets the breakdown of the current search. */
+	public void startSearch() {
+		if (!isEnabled())
+			return;
+		Arrays.fill(searchNanos, 0);
+		expansions = 0;
+		sampledExpansions = 0;
+		countdown = 0;
+		active = false;
+		depth = 0;
+		ignoredDepth = 0;
+	}
+
+	/** Adds the samples of the current search to the aggregated data. */
+	public void endSearch() {
+		if (!isEnabled())
+			return;
+		active = false;
+		depth = 0;
+		ignoredDepth = 0;
+		for (int i = 0; i < PHASES.length; i++)
+			totalNanos[i] += searchNanos[i];
+		searches++;
+	}
+
+	/**
+	 * Starts the next expansion and decides whether it is measured. Phases
+	 * which are still open are closed.
+	 *
+	 * @return true if the phases of the expansion are measured.
+	 */
+	public boolean sample() {
+		if (!isEnabled())
+			return false;
+		while (active && depth > 0)
+			stop();
+		depth = 0;
+		ignoredDepth = 0;
+		expansions++;
+		if (--countdown <= 0) {
+			countdown = sampleInterval;
+			sampledExpansions++;
+			active = true;
+		} else {
+			active = false;
+		}
+		return active;
+	}
+
+	/**
+	 * Opens a phase, which pauses the phase opened before, if any. Phases
+	 * nested deeper than 16 levels are charged to the innermost measured
+	 * phase.
+	 */
+	public void start(Phase phase) {
+		if (active && depth == MAX_DEPTH) {
+			ignoredDepth++;
+		} else if (active) {
+			long now = System.nanoTime();
+			if (depth > 0)
+				stackNanos[depth - 1] += now - lastMark;
+			stack[depth] = phase;
+			stackNanos[depth] = 0;
+			depth++;
+			lastMark = now;
+		}
+	}
+
+	/** Closes the last opened phase and records its exclusive time. */
+	public void stop() {
+		if (active && ignoredDepth > 0) {
+			ignoredDepth--;
+		} else if (active && depth > 0) {
+			long now = System.nanoTime();
+			depth--;
+			long nanos = stackNanos[depth] + now - lastMark;
+			int i = stack[depth].ordinal();
+			searchNanos[i] += nanos;
+			histogram[i][bucket(nanos)]++;
+			lastMark = now;
+		}
+	}
+
+	/**
+	 * Returns a function which evaluates the heuristic as phase
+	 * {@link Phase#HEURISTIC}.
+	 */
+	public <T> ToDoubleFunction<T> timeHeuristic(ToDoubleFunction<T> h) {
+		return node -> {
+			start(Phase.HEURISTIC);
+			double result = h.applyAsDouble(node);
+			stop();
+			return result;
+		};
+	}
+
+	public int getSampleInterval() {
+		return sampleInterval;
+	}
+
+	/** Returns the number of expansions of the current search. */
+	public long getExpansions() {
+		return expansions;
+	}
+
+	/** Returns the number of measured expansions of the current search. */
+	public long getSampledExpansions() {
+		return sampledExpansions;
+	}
+
+	/** Returns the measured nanoseconds of the phase in the current search. */
+	public long getSampledNanos(Phase phase) {
+		return searchNanos[phase.ordinal()];
+	}
+
+	/**
+	 * Returns the nanoseconds spent in the phase during the current search,
+	 * extrapolated from the measured expansions.
+	 */
+	public long getEstimatedNanos(Phase phase) {
+		return sampledExpansions > 0 ? searchNanos[phase.ordinal()] * expansions / sampledExpansions : 0;
+	}
+
+	/** Returns the number of completed searches. */
+	public long getSearchCount() {
+		return searches;
+	}
+
+	/** Returns the measured nanoseconds of the phase in all completed searches. */
+	public long getTotalSampledNanos(Phase phase) {
+		return totalNanos[phase.ordinal()];
+	}
+
+	/**
+	 * Returns the histogram of measured durations of the phase over all
+	 * searches. Entry i counts durations between 2^i and 2^(i+1) - 1
+	 * nanoseconds.
+	 */
+	public long[] getHistogram(Phase phase) {
+		return histogram[phase.ordinal()].clone();
+	}
+
+	/**
+	 * Returns the upper bound of the histogram bucket which contains the
+	 * specified quantile (between 0 and 1) of the measured durations, or 0 if
+	 * there are none.
+	 */
+	public long getQuantileNanos(Phase phase, double quantile) {
+		long[] counts = histogram[phase.ordinal()];
+		long n = 0;
+		for (long count : counts)
+			n += count;
+		long rank = (long) Math.ceil(quantile * n);
+		long sum = 0;
+		for (int i = 0; i < counts.length; i++) {
+			sum += counts[i];
+			if (sum > 0 && sum >= rank)
+				return (1L << (i + 1)) - 1;
+		}
+		return 0;
+	}
+
+	/** Clears the breakdown of the current search and all aggregated data. */
+	public void clear() {
+		if (!isEnabled())
+			return;
+		startSearch();
+		for (long[] counts : histogram)
+			Arrays.fill(counts, 0);
+		Arrays.fill(totalNanos, 0);
+		searches = 0;
+	}
+
+	/**
+	 * Returns a table with the estimated time and share of each phase in the
+	 * current search and the median and 99th percentile of the measured
+	 * durations over all searches.
+	 */
+	@Override
+	public String toString() {
+		long sum = 0;
+		for (Phase phase : PHASES)
+			sum += getEstimatedNanos(phase);
+		StringBuilder result = new StringBuilder();
+		result.append(String.format("%-16s %12s %7s %10s %10s%n", "phase", "ms", "share", "p50 ns", "p99 ns"));
+		for (Phase phase : PHASES) {
+			long nanos = getEstimatedNanos(phase);
+			result.append(String.format("%-16s %12.3f %6.1f%% %10d %10d%n", phase, nanos / 1e6,
+					sum > 0 ? 100.0 * nanos / sum : 0.0,
+					getQuantileNanos(phase, 0.5), getQuantileNanos(phase, 0.99)));
+		}
+		result.append(String.format("%d of %d expansions sampled, %d searches", sampledExpansions, expansions,
+				searches));
+		return result.toString();
+	}
+
+	private static int bucket(long nanos) {
+		int result = 63 - Long.numberOfLeadingZeros(Math.max(1, nanos));
+		return Math.min(result, HISTOGRAM_BUCKETS - 1);
+	}
+}
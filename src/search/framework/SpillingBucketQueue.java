@@ -0,0 +1,319 @@
+package search.framework;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bucket priority queue for small non-negative integer priorities which keeps
+ * at most a given number of elements in main memory. When the budget is
+ * exceeded, the buckets with the highest priorities are spilled to disk until
+ * the queue is down to three quarters of its budget. Each bucket has its own
+ * file of fixed-width records, written and read sequentially with NIO
+ * {@link FileChannel}s. When the lowest bucket has no elements in memory
+ * anymore, spilled elements are paged back in. As the smallest element always
+ * comes first, searches keep their optimality; they just slow down to disk
+ * speed instead of running out of memory.<br>
+ * <br>
+ * Elements are converted by a {@link Codec}. Within a bucket, elements in
+ * memory are returned last-in-first-out. The iterator, {@link #remove(Object)},
+ * and {@link #contains(Object)} only see elements in memory. Spill files are
+ * closed and deleted when the queue is cleared, which
+ * {@link search.framework.qsearch.QueueSearch} does when a search ends. The
+ * queue is not thread safe.
+ *
+ * @param <E> the type of elements held in this queue
+ */
+public class SpillingBucketQueue<E> extends AbstractQueue<E> {
+
+	/**
+	 * Converts elements to fixed-width records and back.
+	 */
+	public interface Codec<E> {
+		/** Returns the number of bytes of each record. */
+		int getRecordSize();
+
+		/** Writes the record of the element at the current buffer position. */
+		void write(E e, ByteBuffer buffer);
+
+		/** Reads a record at the current buffer position. */
+		E read(ByteBuffer buffer);
+
+		/** Called when the queue is cleared. Releases state kept for spilled elements. */
+		default void clear() {
+		}
+	}
+
+	private static final int IO_BUFFER_BYTES = 1 << 16;
+
+	private final ToIntFunction<? super E> priorityFn;
+	private final Codec<E> codec;
+	private final int memoryBudget;
+	private final Path directory;
+	private final List<ArrayDeque<E>> buckets = new ArrayList<>();
+	private final List<SpillFile> spillFiles = new ArrayList<>();
+	private final ByteBuffer ioBuffer;
+	// all buckets below this index are empty, in memory and on disk
+	private int minBucket;
+	private int memorySize;
+	private long diskSize;
+	private long spilled;
+	private long refilled;
+
+	/**
+	 * Creates a spilling bucket queue.
+	 *
+	 * @param priorityFn
+	 *            function which maps elements to priorities &gt;= 0.
+	 * @param codec
+	 *            converter for spilled elements.
+	 * @param memoryBudget
+	 *            the maximum number of elements kept in memory.
+	 * @param directory
+	 *            directory for the spill files, null for the default
+	 *            temporary-file directory.
+	 */
+	public SpillingBucketQueue(ToIntFunction<? super E> priorityFn, Codec<E> codec, int memoryBudget,
+							   Path directory) {
+		if (memoryBudget < 4)
+			throw new IllegalArgumentException("Memory budget must be at least 4 elements.");
+		this.priorityFn = priorityFn;
+		this.codec = codec;
+		this.memoryBudget = memoryBudget;
+		this.directory = directory;
+		int recordSize = codec.getRecordSize();
+		ioBuffer = ByteBuffer.allocateDirect(Math.max(1, IO_BUFFER_BYTES / recordSize) * recordSize);
+	}
+
+	@Override
+	public boolean offer(E e) {
+		int priority = priorityFn.applyAsInt(e);
+		if (priority < 0)
+			throw new IllegalArgumentException("Bucket queue keys must not be negative: " + priority);
+		while (buckets.size() <= priority) {
+			buckets.add(new ArrayDeque<>());
+			spillFiles.add(null);
+		}
+		buckets.get(priority).addLast(e);
+		memorySize++;
+		if (priority < minBucket)
+			minBucket = priority;
+		if (memorySize > memoryBudget)
+			spill();
+		return true;
+	}
+
+	@Override
+	public E poll() {
+		if (isEmpty())
+			return null;
+		memorySize--;
+		return getMinBucket().pollLast();
+	}
+
+	@Override
+	public E peek() {
+		return isEmpty() ? null : getMinBucket().peekLast();
+	}
+
+	/** Removes the element if it is held in memory. */
+	@Override
+	public boolean remove(Object o) {
+		for (ArrayDeque<E> bucket : buckets)
+			if (bucket.remove(o)) {
+				memorySize--;
+				return true;
+			}
+		return false;
+	}
+
+	@Override
+	public int size() {
+		return (int) Math.min(Integer.MAX_VALUE, memorySize + diskSize);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return memorySize == 0 && diskSize == 0;
+	}
+
+	/** Removes all elements and deletes the spill files. */
+	@Override
+	public void clear() {
+		try {
+			for (SpillFile file : spillFiles)
+				if (file != null)
+					file.channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		buckets.clear();
+		spillFiles.clear();
+		codec.clear();
+		minBucket = 0;
+		memorySize = 0;
+		diskSize = 0;
+		spilled = 0;
+		refilled = 0;
+	}
+
+	/** Iterates over the elements in memory. Removal is not supported. */
+	@Override
+	public Iterator<E> iterator() {
+		List<E> elements = new ArrayList<>(memorySize);
+		for (ArrayDeque<E> bucket : buckets)
+			elements.addAll(bucket);
+		return Collections.unmodifiableList(elements).iterator();
+	}
+
+	/** Returns the number of elements held in memory. */
+	public int getMemorySize() {
+		return memorySize;
+	}
+
+	/** Returns the number of elements held on disk. */
+	public long getDiskSize() {
+		return diskSize;
+	}
+
+	/** Returns the number of elements written to disk since the last clear. */
+	public long getSpilledCount() {
+		return spilled;
+	}
+
+	/** Returns the number of elements read back from disk since the last clear. */
+	public long getRefilledCount() {
+		return refilled;
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/** Returns the lowest non-empty bucket, refilled from disk if necessary. */
+	private ArrayDeque<E> getMinBucket() {
+		while (buckets.get(minBucket).isEmpty()) {
+			SpillFile file = spillFiles.get(minBucket);
+			if (file != null && file.size > 0)
+				refill(minBucket, file);
+			else
+				minBucket++;
+		}
+		return buckets.get(minBucket);
+	}
+
+	/**
+	 * Writes elements to disk, starting with the highest bucket, until a
+	 * quarter of the budget is free.
+	 */
+	private void spill() {
+		int target = memoryBudget - memoryBudget / 4;
+		for (int priority = buckets.size() - 1; priority >= minBucket && memorySize > target; priority--) {
+			ArrayDeque<E> bucket = buckets.get(priority);
+			// the lowest bucket keeps its newest elements, which are polled next
+			int count = priority > minBucket ? bucket.size() : Math.min(bucket.size(), memorySize - target);
+			if (count > 0)
+				write(priority, bucket, count);
+		}
+	}
+
+	/** Moves the oldest elements of the bucket to its spill file. */
+	private void write(int priority, ArrayDeque<E> bucket, int count) {
+		try {
+			SpillFile file = spillFiles.get(priority);
+			if (file == null) {
+				String prefix = "bucket-" + priority + "-";
+				file = new SpillFile(directory != null
+						? Files.createTempFile(directory, prefix, ".spill")
+						: Files.createTempFile(prefix, ".spill"));
+				spillFiles.set(priority, file);
+			}
+			ioBuffer.clear();
+			for (int i = 0; i < count; i++) {
+				if (ioBuffer.remaining() < codec.getRecordSize())
+					file.append(ioBuffer);
+				codec.write(bucket.pollFirst(), ioBuffer);
+			}
+			file.append(ioBuffer);
+			file.size += count;
+			memorySize -= count;
+			diskSize += count;
+			spilled += count;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads spilled elements of the bucket until half of the budget is used,
+	 * but at least a quarter of the budget.
+	 */
+	private void refill(int priority, SpillFile file) {
+		try {
+			int recordSize = codec.getRecordSize();
+			long count = Math.min(file.size, Math.max(memoryBudget / 4, memoryBudget / 2 - memorySize));
+			ArrayDeque<E> bucket = buckets.get(priority);
+			for (long remaining = count; remaining > 0; ) {
+				ioBuffer.clear();
+				ioBuffer.limit((int) Math.min(ioBuffer.capacity(), remaining * recordSize));
+				file.read(ioBuffer);
+				ioBuffer.flip();
+				while (ioBuffer.remaining() >= recordSize) {
+					bucket.addLast(codec.read(ioBuffer));
+					remaining--;
+				}
+			}
+			file.size -= count;
+			if (file.size == 0) {
+				// reuse the file from the beginning
+				file.channel.truncate(0);
+				file.readPosition = 0;
+				file.writePosition = 0;
+			}
+			memorySize += count;
+			diskSize -= count;
+			refilled += count;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Append-only file of records which are read in the order of writing.
+	 */
+	private static class SpillFile {
+		private final FileChannel channel;
+		private long readPosition;
+		private long writePosition;
+		private long size;
+
+		SpillFile(Path path) throws IOException {
+			channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+					StandardOpenOption.DELETE_ON_CLOSE);
+		}
+
+		/** Writes the buffer content and clears the buffer. */
+		void append(ByteBuffer buffer) throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining())
+				writePosition += channel.write(buffer, writePosition);
+			buffer.clear();
+		}
+
+		/** Fills the buffer up to its limit. */
+		void read(ByteBuffer buffer) throws IOException {
+			while (buffer.hasRemaining()) {
+				int count = channel.read(buffer, readPosition);
+				if (count < 0)
+					throw new IOException("Unexpected end of spill file.");
+				readPosition += count;
+			}
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package search.framework.explored;
+
+/**
+ * Base class for explored sets which counts lookups and hits.
+ *
+ * @param <S> The type used to represent states
+ */
+public abstract class AbstractExploredSet<S> implements ExploredSet<S> {
+
+	private long lookups;
+	private long hits;
+
+	@Override
+	public final boolean contains(S state) {
+		lookups++;
+		boolean result = containsState(state);
+		if (result)
+			hits++;
+		return result;
+	}
+
+	/** Primitive operation which checks whether the state is contained. */
+	protected abstract boolean containsState(S state);
+
+	@Override
+	public long getLookups() {
+		return lookups;
+	}
+
+	@Override
+	public long getHits() {
+		return hits;
+	}
+
+	/** Resets the lookup and hit counters. */
+	protected void clearCounters() {
+		lookups = 0;
+		hits = 0;
+	}
+}
@@ -0,0 +1,148 @@
+package search.framework.explored;
+
+import java.util.Arrays;
+import java.util.function.ToLongFunction;
+
+/**
+ * Approximate explored set based on a Bloom filter. Each state sets
+ * <em>k</em> bits of a bit array whose positions are derived from a 64 bit
+ * key of the state by double hashing. Memory consumption is fixed and
+ * independent of the number of added states. The set never misses an added
+ * state but may report states as contained which were never added (false
+ * positives). A graph search using it may therefore prune unexplored states
+ * and miss solutions. Removal is not supported.<br>
+ * <br>
+ * With <em>m</em> bits, <em>k</em> hash functions and <em>n</em> added
+ * states, the false positive rate is about (1 - e<sup>-kn/m</sup>)<sup>k</sup>.
+ * For k = 1, the set is a bitstate hash table (supertrace), which uses the
+ * least memory per state; more hash functions pay off when at least 10 bits
+ * per expected state are available, k = m/n &middot; ln 2 being optimal. Keys
+ * should be computed from the complete state, e.g. by Zobrist hashing.
+ *
+ * @param <S> The type used to represent states
+ */
+public class BloomExploredSet<S> extends AbstractExploredSet<S> {
+
+	private final ToLongFunction<? super S> keyFn;
+	private final long bitCount;
+	private final int hashCount;
+	private final long[] words;
+	private long size;
+
+	/**
+	 * @param keyFn
+	 *            function which maps states to well distributed 64 bit keys.
+	 * @param bitCount
+	 *            the size of the bit array.
+	 * @param hashCount
+	 *            the number of bits set per state.
+	 */
+	public BloomExploredSet(ToLongFunction<? super S> keyFn, long bitCount, int hashCount) {
+		if (bitCount < 64 || (bitCount + 63) / 64 > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Unsupported bit count: " + bitCount);
+		if (hashCount < 1)
+			throw new IllegalArgumentException("At least one hash function is needed.");
+		this.keyFn = keyFn;
+		this.bitCount = bitCount;
+		this.hashCount = hashCount;
+		this.words = new long[(int) ((bitCount + 63) / 64)];
+	}
+
+	/**
+	 * Creates a Bloom filter which uses the specified number of bytes.
+	 */
+	public static <S> BloomExploredSet<S> withMemory(ToLongFunction<? super S> keyFn, long bytes, int hashCount) {
+		return new BloomExploredSet<>(keyFn, bytes * 8, hashCount);
+	}
+
+	/**
+	 * Creates a bitstate hash table, a Bloom filter with one hash function
+	 * which uses the specified number of bytes.
+	 */
+	public static <S> BloomExploredSet<S> bitstate(ToLongFunction<? super S> keyFn, long bytes) {
+		return withMemory(keyFn, bytes, 1);
+	}
+
+	public int getHashCount() {
+		return hashCount;
+	}
+
+	public long getBitCount() {
+		return bitCount;
+	}
+
+	/**
+	 * Returns the estimated probability that a state which was not added is
+	 * reported as contained, based on the number of added states.
+	 */
+	@Override
+	public double getFalsePositiveRate() {
+		return Math.pow(1 - Math.exp(-(double) hashCount * size / bitCount), hashCount);
+	}
+
+	@Override
+	protected boolean containsState(S state) {
+		long key = mix(keyFn.applyAsLong(state));
+		long h1 = key >>> 32;
+		long h2 = key & 0xFFFFFFFFL | 1;
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Math.floorMod(h1 + i * h2, bitCount);
+			if ((words[(int) (bit >>> 6)] & 1L << bit) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean add(S state) {
+		long key = mix(keyFn.applyAsLong(state));
+		long h1 = key >>> 32;
+		long h2 = key & 0xFFFFFFFFL | 1;
+		boolean added = false;
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Math.floorMod(h1 + i * h2, bitCount);
+			int word = (int) (bit >>> 6);
+			if ((words[word] & 1L << bit) == 0) {
+				words[word] |= 1L << bit;
+				added = true;
+			}
+		}
+		if (added)
+			size++;
+		return added;
+	}
+
+	/** Not supported, bits might be shared with other states. */
+	@Override
+	public boolean remove(S state) {
+		throw new UnsupportedOperationException("Bloom filters do not support removal.");
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(words, 0L);
+		size = 0;
+		clearCounters();
+	}
+
+	/** Returns the number of states which were added as new states. */
+	@Override
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public long getMemoryUsage() {
+		return (long) words.length * Long.BYTES;
+	}
+
+	/** Finalizer of MurmurHash3, spreads the bits of the key. */
+	private static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+}
@@ -0,0 +1,70 @@
+package search.framework.explored;
+
+/**
+ * Set of states which were already reached by a graph search. Graph search
+ * implementations use it for duplicate detection. The implementations offer
+ * different trade-offs between memory consumption, speed and exactness:
+ * <ul>
+ * <li>{@link HashExploredSet}: generic on-heap hash set, works for all state
+ * types.</li>
+ * <li>{@link LongHashExploredSet}: open addressing hash set of packed
+ * <code>long</code> state codes, 8 to 16 bytes per state.</li>
+ * <li>{@link RankExploredSet}: bitset indexed by the rank of the state, one bit
+ * for each state of the state space. Requires a perfect ranking function.</li>
+ * <li>{@link BloomExploredSet}: Bloom filter with a few bits per state. It can
+ * report states as contained which were never added, so the search might miss
+ * solutions. With one hash function, it is a bitstate hash table.</li>
+ * </ul>
+ * All implementations count lookups and hits, so the hit rate of duplicate
+ * detection can be reported.
+ *
+ * @param <S> The type used to represent states
+ */
+public interface ExploredSet<S> {
+
+	/**
+	 * Returns true if the state was added before (or, for approximate
+	 * implementations, seems to have been added).
+	 */
+	boolean contains(S state);
+
+	/**
+	 * Adds the state and returns true if it was not contained before.
+	 */
+	boolean add(S state);
+
+	/**
+	 * Removes the state and returns true if it was contained. Approximate
+	 * implementations do not support removal.
+	 */
+	boolean remove(S state);
+
+	/** Removes all states and resets the counters. */
+	void clear();
+
+	/** Returns the number of added states. */
+	long size();
+
+	/** Returns an estimation of the number of bytes used for the set, excluding the state objects. */
+	long getMemoryUsage();
+
+	/** Returns the number of {@link #contains(Object)} calls since the last clear. */
+	long getLookups();
+
+	/** Returns the number of {@link #contains(Object)} calls which returned true. */
+	long getHits();
+
+	/**
+	 * Returns the estimated probability that {@link #contains(Object)} reports
+	 * a state which was never added. Exact implementations return 0.
+	 */
+	default double getFalsePositiveRate() {
+		return 0;
+	}
+
+	/** Returns hits divided by lookups, or 0 if there were no lookups. */
+	default double getHitRate() {
+		long lookups = getLookups();
+		return lookups > 0 ? (double) getHits() / lookups : 0;
+	}
+}
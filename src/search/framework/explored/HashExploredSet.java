@@ -0,0 +1,49 @@
+package search.framework.explored;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Explored set based on a {@link HashSet}. It works for all state types which
+ * implement equals and hashCode. The memory estimation assumes about 48 bytes
+ * per entry for hash map node and table slot.
+ *
+ * @param <S> The type used to represent states
+ */
+public class HashExploredSet<S> extends AbstractExploredSet<S> {
+
+	public static final int ESTIMATED_BYTES_PER_ENTRY = 48;
+
+	private final Set<S> states = new HashSet<>();
+
+	@Override
+	protected boolean containsState(S state) {
+		return states.contains(state);
+	}
+
+	@Override
+	public boolean add(S state) {
+		return states.add(state);
+	}
+
+	@Override
+	public boolean remove(S state) {
+		return states.remove(state);
+	}
+
+	@Override
+	public void clear() {
+		states.clear();
+		clearCounters();
+	}
+
+	@Override
+	public long size() {
+		return states.size();
+	}
+
+	@Override
+	public long getMemoryUsage() {
+		return (long) states.size() * ESTIMATED_BYTES_PER_ENTRY;
+	}
+}
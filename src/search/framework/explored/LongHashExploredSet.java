@@ -0,0 +1,136 @@
+package search.framework.explored;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Explored set which stores packed <code>long</code> state codes in an open
+ * addressing hash table with linear probing. States are never stored, so
+ * memory per state is 8 bytes divided by the load factor (at most 0.5).
+ * The encoder must map different states to different codes.
+ *
+ * @param <S> The type used to represent states
+ */
+public class LongHashExploredSet<S> extends AbstractExploredSet<S> {
+
+	private static final long EMPTY = 0L;
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final ToLongFunction<? super S> encoder;
+	private long[] codes = new long[INITIAL_CAPACITY];
+	// code 0 is used to mark empty slots and stored separately
+	private boolean containsEmptyCode;
+	private int size;
+
+	/**
+	 * @param encoder
+	 *            function which maps states to unique codes (e.g.
+	 *            {@link search.framework.problem.PackedProblem#encode(Object)}).
+	 */
+	public LongHashExploredSet(ToLongFunction<? super S> encoder) {
+		this.encoder = encoder;
+	}
+
+	@Override
+	protected boolean containsState(S state) {
+		return containsCode(encoder.applyAsLong(state));
+	}
+
+	@Override
+	public boolean add(S state) {
+		return addCode(encoder.applyAsLong(state));
+	}
+
+	@Override
+	public boolean remove(S state) {
+		return removeCode(encoder.applyAsLong(state));
+	}
+
+	/** Removes the code and returns true if it was contained. */
+	public boolean removeCode(long code) {
+		if (code == EMPTY) {
+			boolean result = containsEmptyCode;
+			if (result)
+				size--;
+			containsEmptyCode = false;
+			return result;
+		}
+		int mask = codes.length - 1;
+		int i = indexOf(code);
+		if (codes[i] == EMPTY)
+			return false;
+		codes[i] = EMPTY;
+		size--;
+		// re-insert the rest of the cluster to keep probing sequences intact
+		for (i = (i + 1) & mask; codes[i] != EMPTY; i = (i + 1) & mask) {
+			long moved = codes[i];
+			codes[i] = EMPTY;
+			codes[indexOf(moved)] = moved;
+		}
+		return true;
+	}
+
+	/** Checks whether the code was added. */
+	public boolean containsCode(long code) {
+		if (code == EMPTY)
+			return containsEmptyCode;
+		return codes[indexOf(code)] == code;
+	}
+
+	/** Adds the code and returns true if it was not contained before. */
+	public boolean addCode(long code) {
+		if (code == EMPTY) {
+			if (containsEmptyCode)
+				return false;
+			containsEmptyCode = true;
+			size++;
+			return true;
+		}
+		int i = indexOf(code);
+		if (codes[i] == code)
+			return false;
+		codes[i] = code;
+		if (2 * ++size > codes.length)
+			rehash(codes.length * 2);
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		codes = new long[INITIAL_CAPACITY];
+		containsEmptyCode = false;
+		size = 0;
+		clearCounters();
+	}
+
+	@Override
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public long getMemoryUsage() {
+		return (long) codes.length * Long.BYTES;
+	}
+
+	/** Returns the slot containing the code or the empty slot where it belongs. */
+	private int indexOf(long code) {
+		int mask = codes.length - 1;
+		int i = hash(code) & mask;
+		while (codes[i] != EMPTY && codes[i] != code)
+			i = (i + 1) & mask;
+		return i;
+	}
+
+	private void rehash(int capacity) {
+		long[] old = codes;
+		codes = new long[capacity];
+		for (long code : old)
+			if (code != EMPTY)
+				codes[indexOf(code)] = code;
+	}
+
+	private static int hash(long code) {
+		long x = code * 0x9E3779B97F4A7C15L;
+		return (int) (x ^ (x >>> 32));
+	}
+}
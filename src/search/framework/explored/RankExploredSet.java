@@ -0,0 +1,88 @@
+package search.framework.explored;
+
+import java.util.Arrays;
+import java.util.function.ToLongFunction;
+
+/**
+ * Explored set for state spaces with a perfect ranking function, which maps
+ * the states one-to-one to the numbers from 0 to the number of states - 1.
+ * One bit is used per state of the state space, no matter how many states
+ * were explored. For the 8-Puzzle, 9! bits (45 KB) are sufficient.
+ *
+ * @param <S> The type used to represent states
+ */
+public class RankExploredSet<S> extends AbstractExploredSet<S> {
+
+	private final ToLongFunction<? super S> ranker;
+	private final long stateCount;
+	private final long[] words;
+	private long size;
+
+	/**
+	 * @param ranker
+	 *            perfect ranking function.
+	 * @param stateCount
+	 *            the number of ranks.
+	 */
+	public RankExploredSet(ToLongFunction<? super S> ranker, long stateCount) {
+		if (stateCount < 0 || (stateCount + 63) / 64 > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("State space too large for a rank bitset: " + stateCount);
+		this.ranker = ranker;
+		this.stateCount = stateCount;
+		this.words = new long[(int) ((stateCount + 63) / 64)];
+	}
+
+	@Override
+	protected boolean containsState(S state) {
+		long rank = getRank(state);
+		return (words[(int) (rank >>> 6)] & 1L << rank) != 0;
+	}
+
+	@Override
+	public boolean add(S state) {
+		long rank = getRank(state);
+		int word = (int) (rank >>> 6);
+		long bit = 1L << rank;
+		if ((words[word] & bit) != 0)
+			return false;
+		words[word] |= bit;
+		size++;
+		return true;
+	}
+
+	@Override
+	public boolean remove(S state) {
+		long rank = getRank(state);
+		int word = (int) (rank >>> 6);
+		long bit = 1L << rank;
+		if ((words[word] & bit) == 0)
+			return false;
+		words[word] &= ~bit;
+		size--;
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(words, 0L);
+		size = 0;
+		clearCounters();
+	}
+
+	@Override
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public long getMemoryUsage() {
+		return (long) words.length * Long.BYTES;
+	}
+
+	private long getRank(S state) {
+		long rank = ranker.applyAsLong(state);
+		if (rank < 0 || rank >= stateCount)
+			throw new IllegalArgumentException("Rank out of range: " + rank);
+		return rank;
+	}
+}
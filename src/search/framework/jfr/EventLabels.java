@@ -0,0 +1,57 @@
+package search.framework.jfr;
+
+/**
+ * Labels which searches attach to their flight recorder events (see
+ * {@link SearchEvent}). The algorithm defaults to a name chosen by the
+ * search, e.g. its class name, until the labels are set explicitly.
+ */
+public final class EventLabels {
+
+	private String algorithm;
+	private String heuristic;
+	private int boardSize;
+	private boolean isSet;
+
+	public EventLabels(String defaultAlgorithm) {
+		algorithm = defaultAlgorithm;
+	}
+
+	/**
+	 * Sets the labels, which then take precedence over default algorithm
+	 * names.
+	 *
+	 * @param heuristic
+	 *            name of the heuristic, null for uninformed search.
+	 * @param boardSize
+	 *            number of tiles per row of the puzzle, 0 if unknown.
+	 */
+	public void set(String algorithm, String heuristic, int boardSize) {
+		this.algorithm = algorithm;
+		this.heuristic = heuristic;
+		this.boardSize = boardSize;
+		isSet = true;
+	}
+
+	/** Copies the labels, e.g. from a search to the subsearches it runs. */
+	public void set(EventLabels labels) {
+		set(labels.algorithm, labels.heuristic, labels.boardSize);
+	}
+
+	/** Changes the algorithm name unless the labels were set explicitly. */
+	public void setDefaultAlgorithm(String algorithm) {
+		if (!isSet)
+			this.algorithm = algorithm;
+	}
+
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	public String getHeuristic() {
+		return heuristic;
+	}
+
+	public int getBoardSize() {
+		return boardSize;
+	}
+}
@@ -0,0 +1,55 @@
+package search.framework.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event which describes an expanded node. Searches emit it
+ * for every {@link #SAMPLE_INTERVAL}-th expansion only, so continuous
+ * recording shows how f, g, h and the frontier evolve without slowing the
+ * search down. Values which a search does not know are NaN or -1.
+ */
+@Name(ExpansionEvent.NAME)
+@Label("Node Expansion")
+@Category({ "Search" })
+@Description("Sampled node expansion")
+@StackTrace(false)
+public class ExpansionEvent extends Event {
+
+	public static final String NAME = "search.Expansion";
+
+	/** Number of expansions per emitted event. */
+	public static final int SAMPLE_INTERVAL = 1024;
+
+	@Label("Algorithm")
+	public String algorithm;
+
+	@Label("Path Cost")
+	public double g;
+
+	@Label("Heuristic")
+	public double h;
+
+	@Label("Evaluation")
+	public double f;
+
+	@Label("Frontier Size")
+	public int frontierSize;
+
+	/** Commits an instant event with the specified values if recording is enabled. */
+	public static void emit(String algorithm, double g, double h, double f, int frontierSize) {
+		ExpansionEvent event = new ExpansionEvent();
+		if (event.shouldCommit()) {
+			event.algorithm = algorithm;
+			event.g = g;
+			event.h = h;
+			event.f = f;
+			event.frontierSize = frontierSize;
+			event.commit();
+		}
+	}
+}
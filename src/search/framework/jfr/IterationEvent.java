@@ -0,0 +1,60 @@
+package search.framework.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event which spans one iteration of an iterative deepening
+ * search, i.e. a depth-limited search or a search bounded by an f-limit.
+ */
+@Name(IterationEvent.NAME)
+@Label("Search Iteration")
+@Category({ "Search" })
+@Description("One iteration of an iterative deepening search")
+@StackTrace(false)
+public class IterationEvent extends Event {
+
+	public static final String NAME = "search.Iteration";
+
+	@Label("Algorithm")
+	public String algorithm;
+
+	@Label("Iteration")
+	public int iteration;
+
+	@Label("Limit")
+	@Description("Depth limit or f-limit of the iteration")
+	public double limit;
+
+	@Label("Result")
+	public String result;
+
+	@Label("Nodes Expanded")
+	public long nodesExpanded;
+
+	/** Creates an event and begins timing if recording is enabled. */
+	public static IterationEvent start(String algorithm, int iteration, double limit) {
+		IterationEvent event = new IterationEvent();
+		if (event.isEnabled()) {
+			event.algorithm = algorithm;
+			event.iteration = iteration;
+			event.limit = limit;
+			event.begin();
+		}
+		return event;
+	}
+
+	/** Ends timing and commits the event if it passes the recording thresholds. */
+	public void finish(String result, long nodesExpanded) {
+		end();
+		if (shouldCommit()) {
+			this.result = result;
+			this.nodesExpanded = nodesExpanded;
+			commit();
+		}
+	}
+}
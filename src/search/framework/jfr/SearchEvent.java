@@ -0,0 +1,84 @@
+package search.framework.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import search.framework.MemoryMeter;
+
+/**
+ * Flight recorder event which spans a complete search. When recording is off,
+ * creating, beginning, and finishing the event costs a few field accesses.
+ * Recordings can be analyzed with JDK Mission Control or the
+ * <code>jfr</code> tool, e.g. to correlate slow searches with garbage
+ * collection.
+ */
+@Name(SearchEvent.NAME)
+@Label("Search")
+@Category({ "Search" })
+@Description("A search from the initial state to a solution or failure")
+@StackTrace(false)
+public class SearchEvent extends Event {
+
+	public static final String NAME = "search.Search";
+
+	public static final String RESULT_SOLVED = "solved";
+	public static final String RESULT_FAILURE = "failure";
+	public static final String RESULT_CUTOFF = "cutoff";
+	public static final String RESULT_CANCELLED = "cancelled";
+
+	@Label("Algorithm")
+	public String algorithm;
+
+	@Label("Heuristic")
+	public String heuristic;
+
+	@Label("Board Size")
+	@Description("Number of tiles per row of the puzzle, 0 if unknown")
+	public int boardSize;
+
+	@Label("Result")
+	public String result;
+
+	@Label("Path Cost")
+	public double pathCost;
+
+	@Label("Nodes Expanded")
+	public long nodesExpanded;
+
+	@Label("Allocated")
+	@Description("Bytes allocated by the searching thread, -1 if not measurable")
+	@DataAmount
+	public long allocatedBytes;
+
+	private transient long startAllocatedBytes;
+
+	/** Creates an event and begins timing if recording is enabled. */
+	public static SearchEvent start(EventLabels labels) {
+		SearchEvent event = new SearchEvent();
+		if (event.isEnabled()) {
+			event.algorithm = labels.getAlgorithm();
+			event.heuristic = labels.getHeuristic();
+			event.boardSize = labels.getBoardSize();
+			event.startAllocatedBytes = MemoryMeter.getThreadAllocatedBytes();
+			event.begin();
+		}
+		return event;
+	}
+
+	/** Ends timing and commits the event if it passes the recording thresholds. */
+	public void finish(String result, double pathCost, long nodesExpanded) {
+		end();
+		if (shouldCommit()) {
+			this.result = result;
+			this.pathCost = pathCost;
+			this.nodesExpanded = nodesExpanded;
+			allocatedBytes = startAllocatedBytes >= 0
+					? MemoryMeter.getThreadAllocatedBytes() - startAllocatedBytes : -1;
+			commit();
+		}
+	}
+}
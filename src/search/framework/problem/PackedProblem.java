@@ -0,0 +1,82 @@
+package search.framework.problem;
+
+/**
+ * Describes a state space whose states can be packed into primitive
+ * <code>long</code> codes. Moves are identified by small integer indices from
+ * 0 to {@link #getMaxBranchingFactor()} - 1. This allows search implementations
+ * to generate successors directly on codes, without allocating state, action,
+ * or node objects for each successor. Each state must be mapped to a unique
+ * code and {@link #NO_STATE} must never be used as a code.
+ *
+ * @param <S> The type used to represent states
+ */
+public interface PackedProblem<S> {
+
+	/**
+	 * Reserved code which is returned by {@link #applyMove(long, int)} if a move
+	 * is not applicable.
+	 */
+	long NO_STATE = -1L;
+
+	/**
+	 * Returns the unique code of the specified state.
+	 */
+	long encode(S state);
+
+	/**
+	 * Returns the state corresponding to the specified code.
+	 */
+	S decode(long code);
+
+	/**
+	 * Returns the number of move indices, which is an upper bound for the number
+	 * of successors of each state.
+	 */
+	int getMaxBranchingFactor();
+
+	/**
+	 * Returns the code of the state which results from applying the specified
+	 * move to the state with the specified code, or {@link #NO_STATE} if the move
+	 * is not applicable.
+	 */
+	long applyMove(long code, int move);
+
+	/**
+	 * Returns true if every move can be undone by another move, i.e. if
+	 * {@link #getInverseMove(int)} is supported. Searches which rely on
+	 * reversible moves (e.g. frontier search) require it.
+	 */
+	default boolean isReversible() {
+		return false;
+	}
+
+	/**
+	 * Returns the index of the move which undoes the specified move.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if moves cannot be undone, see {@link #isReversible()}.
+	 */
+	default int getInverseMove(int move) {
+		throw new UnsupportedOperationException("Moves are not reversible.");
+	}
+
+	/**
+	 * Passes the code of each successor of the specified state together with
+	 * the index of the generating move to the consumer.
+	 */
+	default void forEachSuccessor(long code, SuccessorConsumer consumer) {
+		for (int move = 0; move < getMaxBranchingFactor(); move++) {
+			long successor = applyMove(code, move);
+			if (successor != NO_STATE)
+				consumer.accept(successor, move);
+		}
+	}
+
+	/**
+	 * Receives successor codes without boxing.
+	 */
+	@FunctionalInterface
+	interface SuccessorConsumer {
+		void accept(long successor, int move);
+	}
+}
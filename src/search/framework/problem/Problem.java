@@ -62,6 +62,21 @@ public interface Problem<S, A> extends OnlineSearchProblem<S, A> {
      */
     double getStepCosts(S state, A action, S stateDelta);
 
+    /**
+     * Passes each successor of the given state together with the generating action and the step costs to the
+     * visitor. The default implementation adapts {@link #getActions(Object)}, {@link #getResult(Object, Object)},
+     * and {@link #getStepCosts(Object, Object, Object)}. Problems can override it to generate successors without
+     * creating action lists. Implementations stop as soon as {@link SuccessorVisitor#isDone()} returns true.
+     */
+    default void forEachSuccessor(S state, SuccessorVisitor<S, A> visitor) {
+        for (A action : getActions(state)) {
+            if (visitor.isDone())
+                return;
+            S successor = getResult(state, action);
+            visitor.visit(action, successor, getStepCosts(state, action, successor));
+        }
+    }
+
     /**
      * Tests whether a node represents an acceptable solution. The default implementation
      * delegates the check to the goal test. Other implementations could make use of the additional
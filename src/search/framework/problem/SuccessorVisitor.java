@@ -0,0 +1,35 @@
+package search.framework.problem;
+
+/**
+ * Receives the successors of a state one by one (see
+ * {@link Problem#forEachSuccessor(Object, SuccessorVisitor)}). Step costs are
+ * passed as primitive values, so visiting a successor does not require any
+ * allocation besides the successor state itself.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+@FunctionalInterface
+public interface SuccessorVisitor<S, A> {
+
+	/**
+	 * Receives a successor.
+	 *
+	 * @param action
+	 *            the action leading to the successor.
+	 * @param successor
+	 *            the state resulting from the action.
+	 * @param stepCosts
+	 *            the costs of the step.
+	 */
+	void visit(A action, S successor, double stepCosts);
+
+	/**
+	 * Returns true if the visitor does not need any further successors.
+	 * Problems check it before generating the next successor, so that the
+	 * remaining successor states are not created at all.
+	 */
+	default boolean isDone() {
+		return false;
+	}
+}
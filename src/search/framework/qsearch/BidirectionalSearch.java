@@ -1,5 +1,6 @@
 package search.framework.qsearch;
 
+import search.framework.IndexedHeap;
 import search.framework.Node;
 import search.framework.NodeExpander;
 import search.framework.problem.BidirectionalProblem;
@@ -7,6 +8,8 @@ import search.framework.problem.Problem;
 import util.Tasks;
 
 import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
  * Artificial Intelligence A Modern Approach (3rd Edition): page 90.<br>
@@ -46,6 +49,13 @@ public class BidirectionalSearch<S, A> extends QueueSearch<S, A> {
 	private List<Map<S, ExtendedNode<S, A>>> explored;
 	private ExtendedNode<S, A> goalStateNode;
 
+	// reused for all expansions
+	private final Consumer<Node<S, A>> successorSink = this::addSuccessor;
+	private Problem<S, A> currOrgP;
+	private ExtendedNode<S, A> currNode;
+	private ExtendedNode<S, A> meetingNode;
+	private final BooleanSupplier successorsDone = () -> meetingNode != null;
+
 	public BidirectionalSearch() {
 		this(new NodeExpander<>());
 	}
@@ -77,13 +87,23 @@ public class BidirectionalSearch<S, A> extends QueueSearch<S, A> {
 	 *         containing a single NoOp Action if already at the goal, or an
 	 *         empty list if the goal could not be found.
 	 */
-	@SuppressWarnings("unchecked")
 	public Optional<Node<S, A>> findNode(Problem<S, A> problem, Queue<Node<S, A>> frontier) {
 		assert (problem instanceof BidirectionalProblem);
 
 		nodeExpander.useParentLinks(true); // bidirectional search needs parents!
+		// the frontier only holds extended nodes
+		nodeExpander.useIndexedNodes(false);
 		this.frontier = frontier;
 		clearMetrics();
+		try {
+			return search(problem);
+		} finally {
+			closeSpillFiles();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Optional<Node<S, A>> search(Problem<S, A> problem) {
 		explored.get(ORG_P_IDX).clear();
 		explored.get(REV_P_IDX).clear();
 
@@ -112,23 +132,40 @@ public class BidirectionalSearch<S, A> extends QueueSearch<S, A> {
 
 			// expand the chosen node, adding the resulting nodes to the
 			// frontier
-			for (Node<S, A> s : nodeExpander.expand(nodeToExpand, problem)) {
-				ExtendedNode<S, A> successor = new ExtendedNode<>(s, nodeToExpand.getProblemIndex());
-				if (!isReverseActionTestEnabled || nodeToExpand.getProblemIndex() == ORG_P_IDX
-						|| getReverseAction(orgP, successor) != null) {
-
-					if (earlyGoalTest
-							&& (nodeFromOtherProblem = getCorrespondingNodeFromOtherProblem(successor)) != null)
-						return getSolution(orgP, successor, nodeFromOtherProblem);
-
-					addToFrontier(successor);
-				}
+			currOrgP = orgP;
+			currNode = nodeToExpand;
+			nodeExpander.expand(nodeToExpand, problem, successorSink, successorsDone);
+			currOrgP = null;
+			currNode = null;
+			if (meetingNode != null) {
+				ExtendedNode<S, A> successor = meetingNode;
+				meetingNode = null;
+				return getSolution(orgP, successor, getCorrespondingNodeFromOtherProblem(successor));
 			}
 		}
 		// if the frontier is empty then return failure
 		return Optional.empty();
 	}
 
+	/**
+	 * Adds a successor of the currently expanded node to the frontier and
+	 * performs the early goal test. Once a meeting node is found, the node
+	 * expander stops generating successors.
+	 */
+	private void addSuccessor(Node<S, A> s) {
+		if (meetingNode != null)
+			return;
+		ExtendedNode<S, A> successor = new ExtendedNode<>(s, currNode.getProblemIndex());
+		if (!isReverseActionTestEnabled || currNode.getProblemIndex() == ORG_P_IDX
+				|| getReverseAction(currOrgP, successor) != null) {
+
+			if (earlyGoalTest && getCorrespondingNodeFromOtherProblem(successor) != null)
+				meetingNode = successor;
+			else
+				addToFrontier(successor);
+		}
+	}
+
 	/**
 	 * Enables a check for all actions offered by the reverse problem whether
 	 * there exists a corresponding action of the original problem. Default
@@ -265,9 +302,11 @@ public class BidirectionalSearch<S, A> extends QueueSearch<S, A> {
 	 * @author Ruediger Lunde
 	 *
 	 */
-	private static class ExtendedNode<S, A> extends Node<S, A> {
+	private static class ExtendedNode<S, A> extends Node<S, A> implements IndexedHeap.Element {
 
 		int problemIndex;
+		// slot in an indexed heap frontier, fits into the padding of the node
+		int heapIndex = -1;
 
 		ExtendedNode(Node<S, A> node, int problemIndex) {
 			super(node.getState(), node.getParent(), node.getAction(), node.getPathCost());
@@ -278,6 +317,16 @@ public class BidirectionalSearch<S, A> extends QueueSearch<S, A> {
 			return problemIndex;
 		}
 
+		@Override
+		public int getHeapIndex() {
+			return heapIndex;
+		}
+
+		@Override
+		public void setHeapIndex(int index) {
+			heapIndex = index;
+		}
+
 		@Override
 		public String toString() {
 			return "[" + getState() + ":" + problemIndex + "]";
@@ -1,12 +1,13 @@
 package search.framework.qsearch;
 
-import java.util.HashSet;
 import java.util.Optional;
 import java.util.Queue;
-import java.util.Set;
 
 import search.framework.Node;
 import search.framework.NodeExpander;
+import search.framework.SearchProfiler;
+import search.framework.explored.ExploredSet;
+import search.framework.explored.HashExploredSet;
 import search.framework.problem.Problem;
 
 /**
@@ -45,7 +46,7 @@ import search.framework.problem.Problem;
  */
 public class GraphSearch<S, A> extends QueueSearch<S, A> {
 
-	private Set<S> explored = new HashSet<>();
+	private ExploredSet<S> explored = new HashExploredSet<>();
 
 	public GraphSearch() {
 		this(new NodeExpander<>());
@@ -55,6 +56,17 @@ public class GraphSearch<S, A> extends QueueSearch<S, A> {
 		super(nodeExpander);
 	}
 
+	/**
+	 * Replaces the set used to store explored states. Default is a
+	 * {@link HashExploredSet}. Approximate sets like
+	 * {@link search.framework.explored.BloomExploredSet} reduce memory to a few
+	 * bits per state, but the search becomes incomplete with the reported
+	 * false positive rate.
+	 */
+	public void setExploredSet(ExploredSet<S> explored) {
+		this.explored = explored;
+	}
+
 	/**
 	 * Clears the set of explored states and calls the search implementation of
 	 * {@link QueueSearch}.
@@ -63,7 +75,9 @@ public class GraphSearch<S, A> extends QueueSearch<S, A> {
 	public Optional<Node<S, A>> findNode(Problem<S, A> problem, Queue<Node<S, A>> frontier) {
 		// initialize the explored set to be empty
 		explored.clear();
-		return super.findNode(problem, frontier);
+		Optional<Node<S, A>> result = super.findNode(problem, frontier);
+		updateExploredMetrics(explored);
+		return result;
 	}
 
 	/**
@@ -72,7 +86,7 @@ public class GraphSearch<S, A> extends QueueSearch<S, A> {
 	 */
 	@Override
 	protected void addToFrontier(Node<S, A> node) {
-		if (!explored.contains(node.getState())) {
+		if (!isExplored(node.getState())) {
 			frontier.add(node);
 			updateMetrics(frontier.size());
 		}
@@ -91,7 +105,9 @@ public class GraphSearch<S, A> extends QueueSearch<S, A> {
 		cleanUpFrontier(); // not really necessary because isFrontierEmpty
 							// should be called before...
 		Node<S, A> result = frontier.remove();
+		profiler.start(SearchProfiler.Phase.DUPLICATE_CHECK);
 		explored.add(result.getState());
+		profiler.stop();
 		updateMetrics(frontier.size());
 		return result;
 	}
@@ -112,7 +128,14 @@ public class GraphSearch<S, A> extends QueueSearch<S, A> {
 	 * of the frontier.
 	 */
 	private void cleanUpFrontier() {
-		while (!frontier.isEmpty() && explored.contains(frontier.element().getState()))
+		while (!frontier.isEmpty() && isExplored(frontier.element().getState()))
 			frontier.remove();
 	}
+
+	private boolean isExplored(S state) {
+		profiler.start(SearchProfiler.Phase.DUPLICATE_CHECK);
+		boolean result = explored.contains(state);
+		profiler.stop();
+		return result;
+	}
 }
\ No newline at end of file
@@ -1,12 +1,13 @@
 package search.framework.qsearch;
 
-import java.util.HashSet;
 import java.util.Optional;
 import java.util.Queue;
-import java.util.Set;
 
 import search.framework.Node;
 import search.framework.NodeExpander;
+import search.framework.SearchProfiler;
+import search.framework.explored.ExploredSet;
+import search.framework.explored.HashExploredSet;
 import search.framework.problem.Problem;
 
 /**
@@ -43,8 +44,8 @@ import search.framework.problem.Problem;
  */
 public class GraphSearchBFS<S, A> extends QueueSearch<S, A> {
 
-	private Set<S> explored = new HashSet<>();
-	private Set<S> frontierStates = new HashSet<>();
+	private ExploredSet<S> explored = new HashExploredSet<>();
+	private ExploredSet<S> frontierStates = new HashExploredSet<>();
 
 	public GraphSearchBFS() {
 		this(new NodeExpander<>());
@@ -55,6 +56,27 @@ public class GraphSearchBFS<S, A> extends QueueSearch<S, A> {
 	}
 	
 	
+	/**
+	 * Replaces the sets used to store explored states and frontier states.
+	 * Default are {@link HashExploredSet}s. The frontier state set must support
+	 * removal. If it is null, states are added to the explored set as soon as
+	 * they enter the frontier and no frontier state set is needed. This mode
+	 * supports approximate explored sets without removal like
+	 * {@link search.framework.explored.BloomExploredSet}.
+	 */
+	public void setExploredSets(ExploredSet<S> explored, ExploredSet<S> frontierStates) {
+		this.explored = explored;
+		this.frontierStates = frontierStates;
+	}
+
+	/**
+	 * Uses a single set for states which were explored or entered the frontier.
+	 * Same as <code>setExploredSets(reached, null)</code>.
+	 */
+	public void setReachedSet(ExploredSet<S> reached) {
+		setExploredSets(reached, null);
+	}
+
 	/**
 	 * Clears the set of explored states and calls the search implementation of
 	 * <code>QueSearch</code>
@@ -63,8 +85,14 @@ public class GraphSearchBFS<S, A> extends QueueSearch<S, A> {
 	public Optional<Node<S, A>> findNode(Problem<S, A> problem, Queue<Node<S, A>> frontier) {
 		// Initialize the explored set to be empty
 		explored.clear();
-		frontierStates.clear();
-		return super.findNode(problem, frontier);
+		if (frontierStates != null)
+			frontierStates.clear();
+		Optional<Node<S, A>> result = super.findNode(problem, frontier);
+		if (frontierStates != null)
+			updateExploredMetrics(explored, frontierStates);
+		else
+			updateExploredMetrics(explored);
+		return result;
 	}
 
 	/**
@@ -73,9 +101,21 @@ public class GraphSearchBFS<S, A> extends QueueSearch<S, A> {
 	 */
 	@Override
 	protected void addToFrontier(Node<S, A> node) {
-		if (!explored.contains(node.getState()) && !frontierStates.contains(node.getState())) {
+		profiler.start(SearchProfiler.Phase.DUPLICATE_CHECK);
+		boolean isNew;
+		if (frontierStates == null) {
+			// reached set mode
+			isNew = !explored.contains(node.getState());
+			if (isNew)
+				explored.add(node.getState());
+		} else {
+			isNew = !explored.contains(node.getState()) && !frontierStates.contains(node.getState());
+			if (isNew)
+				frontierStates.add(node.getState());
+		}
+		profiler.stop();
+		if (isNew) {
 			frontier.add(node);
-			frontierStates.add(node.getState());
 			updateMetrics(frontier.size());
 		}
 	}
@@ -89,8 +129,12 @@ public class GraphSearchBFS<S, A> extends QueueSearch<S, A> {
 	@Override
 	protected Node<S, A> removeFromFrontier() {
 		Node<S, A> result = frontier.remove();
-		explored.add(result.getState());
-		frontierStates.remove(result.getState());
+		if (frontierStates != null) {
+			profiler.start(SearchProfiler.Phase.DUPLICATE_CHECK);
+			explored.add(result.getState());
+			frontierStates.remove(result.getState());
+			profiler.stop();
+		}
 		updateMetrics(frontier.size());
 		return result;
 	}
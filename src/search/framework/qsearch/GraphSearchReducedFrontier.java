@@ -2,6 +2,8 @@ package search.framework.qsearch;
 
 import java.util.*;
 
+import search.framework.BucketQueue;
+import search.framework.IndexedHeap;
 import search.framework.Node;
 import search.framework.NodeExpander;
 import search.framework.problem.Problem;
@@ -34,7 +36,10 @@ import search.framework.problem.Problem;
  * priority queue frontiers. If a node is added to the frontier, this
  * implementation checks whether another node for the same state already exists
  * and decides whether to replace it or ignore the new node depending on the
- * node's costs (comparator of priority queue is used, if available).
+ * node's costs (comparator of priority queue is used, if available). With an
+ * {@link IndexedHeap} frontier (see e.g. the heap arity constructors of
+ * {@link search.informed.AStarSearch}), replaced nodes are removed in
+ * logarithmic instead of linear time.
  *
  * @param <S> The type used to represent states
  * @param <A> The type of the actions to be used to navigate through the state space
@@ -66,6 +71,10 @@ public class GraphSearchReducedFrontier<S, A> extends QueueSearch<S, A> {
 		// initialize the explored set to be empty
 		if (frontier instanceof PriorityQueue<?>)
 			nodeComparator = ((PriorityQueue<Node<S, A>>) frontier).comparator();
+		else if (frontier instanceof IndexedHeap<?>)
+			nodeComparator = ((IndexedHeap<Node<S, A>>) frontier).comparator();
+		else if (frontier instanceof BucketQueue<?>)
+			nodeComparator = ((BucketQueue<Node<S, A>>) frontier).comparator();
 		explored.clear();
 		frontierNodeLookup.clear();
 		return super.findNode(problem, frontier);
@@ -94,9 +103,14 @@ public class GraphSearchReducedFrontier<S, A> extends QueueSearch<S, A> {
 			} else if (nodeComparator != null && nodeComparator.compare(node, frontierNode) < 0) {
 				// child.STATE is in frontier with higher cost
 				// replace that frontier node with child
-				if (frontier.remove(frontierNode))
-					frontierNodeLookup.remove(frontierNode.getState());
-				frontier.add(node);
+				if (frontier instanceof IndexedHeap<?>) {
+					// decrease-key in logarithmic time
+					((IndexedHeap<Node<S, A>>) frontier).replace(frontierNode, node);
+				} else {
+					if (frontier.remove(frontierNode))
+						frontierNodeLookup.remove(frontierNode.getState());
+					frontier.add(node);
+				}
 				frontierNodeLookup.put(node.getState(), node);
 			}
 		}
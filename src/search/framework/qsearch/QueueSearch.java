@@ -1,13 +1,24 @@
 package search.framework.qsearch;
 
+import search.framework.IndexedHeap;
+import search.framework.MemoryMeter;
 import search.framework.Metrics;
 import search.framework.Node;
 import search.framework.NodeExpander;
+import search.framework.SearchProfiler;
+import search.framework.SpillingBucketQueue;
+import search.framework.explored.ExploredSet;
+import search.framework.jfr.EventLabels;
+import search.framework.jfr.ExpansionEvent;
+import search.framework.jfr.SearchEvent;
 import search.framework.problem.Problem;
 import util.Tasks;
 
 import java.util.Optional;
 import java.util.Queue;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Base class for queue-based search implementations, especially for
@@ -30,17 +41,45 @@ public abstract class QueueSearch<S, A> {
 	public static final String METRIC_NODES_EXPANDED = "nodesExpanded";
 	public static final String METRIC_QUEUE_SIZE = "queueSize";
 	public static final String METRIC_MAX_QUEUE_SIZE = "maxQueueSize";
+	public static final String METRIC_QUEUE_SPILLED = "queueSpilled";
+	public static final String METRIC_QUEUE_REFILLED = "queueRefilled";
 	public static final String METRIC_PATH_COST = "pathCost";
+	public static final String METRIC_EXPLORED_SIZE = "exploredSize";
+	public static final String METRIC_EXPLORED_MEMORY = "exploredMemory";
+	public static final String METRIC_EXPLORED_HIT_RATE = "exploredHitRate";
+	public static final String METRIC_EXPLORED_FALSE_POSITIVE_RATE = "exploredFalsePositiveRate";
+	public static final String METRIC_ALLOCATED_BYTES = "allocatedBytes";
+	public static final String METRIC_MAX_LIVE_NODES = "maxLiveNodes";
+	public static final String METRIC_PEAK_MEMORY = "peakMemory";
 
 	final protected NodeExpander<S, A> nodeExpander;
 	protected Queue<Node<S, A>> frontier;
 	protected boolean earlyGoalTest = false;
-	protected Metrics metrics = new Metrics();
+	protected final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final Metrics.Gauge queueSize = metrics.gauge(METRIC_QUEUE_SIZE);
+	private final Metrics.Gauge maxQueueSize = metrics.gauge(METRIC_MAX_QUEUE_SIZE);
+	private final Metrics.Gauge maxLiveNodes = metrics.gauge(METRIC_MAX_LIVE_NODES);
+	private int bytesPerNode = MemoryMeter.NODE_BYTES;
+	/** Profiler of the node expander, fetched when a search starts. */
+	protected SearchProfiler profiler = SearchProfiler.DISABLED;
+
+	// labels and value functions for flight recorder events
+	private final EventLabels eventLabels = new EventLabels(getClass().getSimpleName());
+	private ToDoubleFunction<Node<S, A>> eventEvalFn;
+	private ToDoubleFunction<Node<S, A>> eventHeuristicFn;
+	private int expansionEventCountdown;
+
+	// reused for all expansions
+	private final Consumer<Node<S, A>> successorSink = this::addSuccessor;
+	private Problem<S, A> currProblem;
+	private Node<S, A> earlyGoalNode;
+	private final BooleanSupplier successorsDone = () -> earlyGoalNode != null;
 
 	/** Stores the provided node expander and adds a node listener to it. */
 	protected QueueSearch(NodeExpander<S, A> nodeExpander) {
 		this.nodeExpander = nodeExpander;
-		nodeExpander.addNodeListener((node) -> metrics.incrementInt(METRIC_NODES_EXPANDED));
+		nodeExpander.addNodeListener((node) -> nodesExpanded.increment());
 	}
 
 	/**
@@ -49,8 +88,11 @@ public abstract class QueueSearch<S, A> {
 	 * This template method provides a base for tree and graph search
 	 * implementations. It can be customized by overriding some primitive
 	 * operations, especially {@link #addToFrontier(Node)},
-	 * {@link #removeFromFrontier()}, and {@link #isFrontierEmpty()}.
-	 * 
+	 * {@link #removeFromFrontier()}, and {@link #isFrontierEmpty()}. If the
+	 * node expander has a {@link SearchProfiler}, goal tests, frontier access,
+	 * and expansions are reported to it. The search and every 1024th
+	 * expansion are reported as flight recorder events.
+	 *
 	 * @param problem
 	 *            the search problem
 	 * @param frontier
@@ -59,36 +101,117 @@ public abstract class QueueSearch<S, A> {
 	 * @return a node referencing a goal state, if the goal was found, otherwise empty;
 	 */
 	public Optional<Node<S, A>> findNode(Problem<S, A> problem, Queue<Node<S, A>> frontier) {
+		SearchEvent event = SearchEvent.start(eventLabels);
+		long allocated = MemoryMeter.getThreadAllocatedBytes();
 		this.frontier = frontier;
+		nodeExpander.useIndexedNodes(frontier instanceof IndexedHeap);
+		profiler = nodeExpander.getProfiler();
+		expansionEventCountdown = ExpansionEvent.SAMPLE_INTERVAL;
 		clearMetrics();
+		profiler.startSearch();
+		Optional<Node<S, A>> result;
+		try {
+			result = search(problem);
+		} finally {
+			profiler.endSearch();
+			closeSpillFiles();
+		}
+		updateProfilerMetrics();
+		if (allocated >= 0)
+			metrics.set(METRIC_ALLOCATED_BYTES, MemoryMeter.getThreadAllocatedBytes() - allocated);
+		updateMemoryMetrics();
+		event.finish(result.isPresent() ? SearchEvent.RESULT_SOLVED
+						: Tasks.currIsCancelled() ? SearchEvent.RESULT_CANCELLED : SearchEvent.RESULT_FAILURE,
+				metrics.getDouble(METRIC_PATH_COST), nodesExpanded.get());
+		return result;
+	}
+
+	private Optional<Node<S, A>> search(Problem<S, A> problem) {
 		// initialize the frontier using the initial state of the problem
 		Node<S, A> root = nodeExpander.createRootNode(problem.getInitialState());
 		addToFrontier(root);
-		if (earlyGoalTest && problem.testSolution(root))
+		if (earlyGoalTest && testSolution(problem, root))
 			return getSolution(root);
 
 		while (!isFrontierEmpty() && !Tasks.currIsCancelled()) {
+			profiler.sample();
 			// choose a leaf node and remove it from the frontier
+			profiler.start(SearchProfiler.Phase.FRONTIER_REMOVE);
 			Node<S, A> nodeToExpand = removeFromFrontier();
+			profiler.stop();
+			if (--expansionEventCountdown == 0) {
+				expansionEventCountdown = ExpansionEvent.SAMPLE_INTERVAL;
+				emitExpansionEvent(nodeToExpand);
+			}
 			// only need to check the nodeToExpand if have not already
 			// checked before adding to the frontier
-			if (!earlyGoalTest && problem.testSolution(nodeToExpand))
+			if (!earlyGoalTest && testSolution(problem, nodeToExpand))
 				// if the node contains a goal state then return the
 				// corresponding solution
 				return getSolution(nodeToExpand);
 
 			// expand the chosen node, adding the resulting nodes to the
 			// frontier
-			for (Node<S, A> successor : nodeExpander.expand(nodeToExpand, problem)) {
-				addToFrontier(successor);
-				if (earlyGoalTest && problem.testSolution(successor))
-					return getSolution(successor);
+			currProblem = problem;
+			nodeExpander.expand(nodeToExpand, problem, successorSink, successorsDone);
+			currProblem = null;
+			if (earlyGoalNode != null) {
+				Node<S, A> goalNode = earlyGoalNode;
+				earlyGoalNode = null;
+				return getSolution(goalNode);
 			}
 		}
 		// if the frontier is empty then return failure
 		return Optional.empty();
 	}
 
+	/**
+	 * Adds a successor to the frontier and performs the early goal test. Once
+	 * a goal node is found, the node expander stops generating successors.
+	 */
+	private void addSuccessor(Node<S, A> successor) {
+		if (earlyGoalNode == null) {
+			profiler.start(SearchProfiler.Phase.FRONTIER_INSERT);
+			addToFrontier(successor);
+			profiler.stop();
+			if (earlyGoalTest && testSolution(currProblem, successor))
+				earlyGoalNode = successor;
+		}
+	}
+
+	/**
+	 * Publishes the spill counts of a spilling frontier and clears it, which
+	 * closes and deletes its spill files. The remaining nodes are not needed
+	 * after the search.
+	 */
+	protected void closeSpillFiles() {
+		if (frontier instanceof SpillingBucketQueue) {
+			SpillingBucketQueue<?> queue = (SpillingBucketQueue<?>) frontier;
+			metrics.set(METRIC_QUEUE_SPILLED, queue.getSpilledCount());
+			metrics.set(METRIC_QUEUE_REFILLED, queue.getRefilledCount());
+			queue.clear();
+		}
+	}
+
+	private void emitExpansionEvent(Node<S, A> node) {
+		ExpansionEvent event = new ExpansionEvent();
+		if (event.shouldCommit()) {
+			event.algorithm = eventLabels.getAlgorithm();
+			event.g = node.getPathCost();
+			event.h = eventHeuristicFn != null ? eventHeuristicFn.applyAsDouble(node) : Double.NaN;
+			event.f = eventEvalFn != null ? eventEvalFn.applyAsDouble(node) : Double.NaN;
+			event.frontierSize = frontier.size();
+			event.commit();
+		}
+	}
+
+	private boolean testSolution(Problem<S, A> problem, Node<S, A> node) {
+		profiler.start(SearchProfiler.Phase.GOAL_TEST);
+		boolean result = problem.testSolution(node);
+		profiler.stop();
+		return result;
+	}
+
 	/**
 	 * Primitive operation which inserts the node at the tail of the frontier.
 	 */
@@ -120,6 +243,30 @@ public abstract class QueueSearch<S, A> {
 		return nodeExpander;
 	}
 
+	/** Returns the labels of the flight recorder events of this search. */
+	public EventLabels getEventLabels() {
+		return eventLabels;
+	}
+
+	/**
+	 * Sets the functions which provide f- and h-values of sampled
+	 * {@link ExpansionEvent}s. They are only called while recording.
+	 */
+	public void setEventFunctions(ToDoubleFunction<Node<S, A>> evalFn, ToDoubleFunction<Node<S, A>> h) {
+		eventEvalFn = evalFn;
+		eventHeuristicFn = h;
+	}
+
+	/**
+	 * Sets the estimated number of bytes retained per node, which is used for
+	 * the peak memory metric. The default {@link MemoryMeter#NODE_BYTES}
+	 * covers the node object only. If states are not shared between nodes,
+	 * their size should be added.
+	 */
+	public void setBytesPerNode(int bytesPerNode) {
+		this.bytesPerNode = bytesPerNode;
+	}
+
 	/**
 	 * Returns all the search metrics.
 	 */
@@ -135,14 +282,65 @@ public abstract class QueueSearch<S, A> {
 		metrics.set(METRIC_QUEUE_SIZE, 0);
 		metrics.set(METRIC_MAX_QUEUE_SIZE, 0);
 		metrics.set(METRIC_PATH_COST, 0);
+		metrics.set(METRIC_MAX_LIVE_NODES, 0L);
+		metrics.set(METRIC_PEAK_MEMORY, 0L);
+		if (MemoryMeter.isAllocationMeasurable())
+			metrics.set(METRIC_ALLOCATED_BYTES, 0L);
+		if (frontier instanceof SpillingBucketQueue) {
+			metrics.set(METRIC_QUEUE_SPILLED, 0L);
+			metrics.set(METRIC_QUEUE_REFILLED, 0L);
+		}
+		if (profiler.isEnabled())
+			for (SearchProfiler.Phase phase : SearchProfiler.Phase.values())
+				metrics.set(phase.getMetricName(), 0L);
 	}
 
 	protected void updateMetrics(int queueSize) {
-		metrics.set(METRIC_QUEUE_SIZE, queueSize);
-		int maxQSize = metrics.getInt(METRIC_MAX_QUEUE_SIZE);
-		if (queueSize > maxQSize) {
-			metrics.set(METRIC_MAX_QUEUE_SIZE, queueSize);
+		this.queueSize.set(queueSize);
+		maxQueueSize.updateMax(queueSize);
+		// with parent links, expanded nodes stay reachable from the frontier
+		maxLiveNodes.updateMax(nodeExpander.isUsingParentLinks() ? queueSize + nodesExpanded.get() : queueSize + 1);
+	}
+
+	/**
+	 * Publishes the number of states, the estimated memory usage in bytes, the
+	 * hit rate, and the estimated false positive rate of the specified explored
+	 * sets.
+	 */
+	protected void updateExploredMetrics(ExploredSet<?>... sets) {
+		long size = 0, memory = 0, lookups = 0, hits = 0;
+		double exactRate = 1;
+		for (ExploredSet<?> set : sets) {
+			size += set.size();
+			memory += set.getMemoryUsage();
+			lookups += set.getLookups();
+			hits += set.getHits();
+			exactRate *= 1 - set.getFalsePositiveRate();
 		}
+		metrics.set(METRIC_EXPLORED_SIZE, size);
+		metrics.set(METRIC_EXPLORED_MEMORY, memory);
+		metrics.set(METRIC_EXPLORED_HIT_RATE, lookups > 0 ? (double) hits / lookups : 0.0);
+		metrics.set(METRIC_EXPLORED_FALSE_POSITIVE_RATE, 1 - exactRate);
+		updateMemoryMetrics();
+	}
+
+	/**
+	 * Publishes the estimated peak of retained memory in bytes, the peak
+	 * number of live nodes times the bytes per node plus the memory of the
+	 * explored sets, which never shrink during a search.
+	 */
+	protected void updateMemoryMetrics() {
+		metrics.set(METRIC_PEAK_MEMORY, maxLiveNodes.get() * bytesPerNode + metrics.getLong(METRIC_EXPLORED_MEMORY));
+	}
+
+	/**
+	 * Publishes the estimated nanoseconds spent in each phase if the node
+	 * expander has an enabled profiler.
+	 */
+	protected void updateProfilerMetrics() {
+		if (profiler.isEnabled())
+			for (SearchProfiler.Phase phase : SearchProfiler.Phase.values())
+				metrics.set(phase.getMetricName(), profiler.getEstimatedNanos(phase));
 	}
 
 	private Optional<Node<S, A>> getSolution(Node<S, A> node) {
@@ -1,8 +1,12 @@
 package search.informed;
 
+import search.framework.BucketQueue;
 import search.framework.Node;
+import search.framework.NodeCodec;
+import search.framework.SpillingBucketQueue;
 import search.framework.qsearch.QueueSearch;
 
+import java.nio.file.Path;
 import java.util.function.ToDoubleFunction;
 
 /**
@@ -36,6 +40,46 @@ public class AStarSearch<S, A> extends BestFirstSearch<S, A> {
         super(impl, new EvalFunction<>(h));
     }
 
+    /**
+     * Constructs an A* search which uses an indexed heap as frontier, which
+     * speeds up GraphSearchReducedFrontier.
+     *
+     * @param impl      a search space exploration strategy (e.g. GraphSearchReducedFrontier).
+     * @param h         a heuristic function.
+     * @param heapArity the number of children per heap node, e.g. IndexedHeap.DEFAULT_ARITY.
+     */
+    public AStarSearch(QueueSearch<S, A> impl, ToDoubleFunction<Node<S, A>> h, int heapArity) {
+        super(impl, new EvalFunction<>(h), heapArity);
+    }
+
+    /**
+     * Constructs an A* search which uses a bucket queue as frontier. Step
+     * costs and heuristic values must be non-negative integers.
+     *
+     * @param impl        a search space exploration strategy (e.g. TreeSearch, GraphSearch).
+     * @param h           an integral heuristic function.
+     * @param tieBreaking the order of nodes with equal f-value, LARGER_SECONDARY prefers deeper nodes.
+     */
+    public AStarSearch(QueueSearch<S, A> impl, ToDoubleFunction<Node<S, A>> h, BucketQueue.TieBreaking tieBreaking) {
+        super(impl, new EvalFunction<>(h), tieBreaking);
+    }
+
+    /**
+     * Constructs an A* search whose frontier spills the nodes with the highest
+     * f-values to disk when it exceeds a memory budget. Step costs and
+     * heuristic values must be non-negative integers.
+     *
+     * @param impl         a search space exploration strategy (e.g. TreeSearch, GraphSearch).
+     * @param h            an integral heuristic function.
+     * @param codec        converter for spilled nodes, e.g. a {@link NodeCodec}.
+     * @param memoryBudget the maximum number of frontier nodes kept in memory.
+     * @param directory    directory for the spill files, null for the default temporary-file directory.
+     */
+    public AStarSearch(QueueSearch<S, A> impl, ToDoubleFunction<Node<S, A>> h,
+                       SpillingBucketQueue.Codec<Node<S, A>> codec, int memoryBudget, Path directory) {
+        super(impl, new EvalFunction<>(h), codec, memoryBudget, directory);
+    }
+
 
     public static class EvalFunction<S, A> extends HeuristicEvaluationFunction<S, A> {
         private ToDoubleFunction<Node> g;
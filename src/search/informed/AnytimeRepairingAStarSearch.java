@@ -0,0 +1,426 @@
+package search.informed;
+
+import search.framework.*;
+import search.framework.problem.Problem;
+import search.framework.qsearch.QueueSearch;
+import util.Tasks;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Anytime Repairing A* (ARA*, Likhachev, Gordon and Thrun 2003).<br>
+ * <br>
+ *
+ * <pre>
+ * function IMPROVE-PATH()
+ *   while f(goal) &gt; min(f(s) | s in OPEN) do
+ *     remove s with the smallest f(s) from OPEN, add s to CLOSED
+ *     for each successor s' of s do
+ *       if g(s') &gt; g(s) + c(s, s') then
+ *         g(s') &lt;- g(s) + c(s, s')
+ *         if s' is not in CLOSED then insert s' into OPEN with f(s')
+ *         else insert s' into INCONS
+ *
+ * function ARA*()
+ *   g(start) &lt;- 0, OPEN &lt;- {start}, CLOSED &lt;- INCONS &lt;- {}
+ *   IMPROVE-PATH(), publish current solution with bound min(w, g(goal) / min(g(s) + h(s) | s in OPEN or INCONS))
+ *   while bound &gt; 1 and time is left do
+ *     decrease w
+ *     move all states from INCONS into OPEN, update all priorities, CLOSED &lt;- {}
+ *     IMPROVE-PATH(), publish current solution with its bound
+ * </pre>
+ *
+ * Here, f(s) = g(s) + w * h(s). The first iteration is a weighted A* search
+ * which returns a solution quickly. Each further iteration decreases the
+ * weight and reuses the g-values of the previous iterations. States whose
+ * costs improve after they have been expanded in the current iteration are
+ * not re-expanded but collected in INCONS for the next iteration. Each
+ * improved solution is published to the solution listeners together with an
+ * upper bound for its suboptimality. Search stops at the deadline, when the
+ * task is cancelled, or when the solution is proven optimal. The best solution
+ * found so far is returned.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class AnytimeRepairingAStarSearch<S, A> implements SearchForActions<S, A>, SearchForStates<S, A>, Informed<S, A> {
+
+	public static final String METRIC_NODES_EXPANDED = QueueSearch.METRIC_NODES_EXPANDED;
+	public static final String METRIC_QUEUE_SIZE = QueueSearch.METRIC_QUEUE_SIZE;
+	public static final String METRIC_MAX_QUEUE_SIZE = QueueSearch.METRIC_MAX_QUEUE_SIZE;
+	public static final String METRIC_PATH_COST = QueueSearch.METRIC_PATH_COST;
+	public static final String METRIC_ITERATIONS = "iterations";
+	public static final String METRIC_WEIGHT = "weight";
+	public static final String METRIC_SUBOPTIMALITY_BOUND = "suboptimalityBound";
+
+	private static final double INFINITY = Double.MAX_VALUE;
+
+	private final WeightedAStarSearch.EvalFunction<S, A> evalFn;
+	private final double initialWeight;
+	private final double weightDecrement;
+	private final NodeExpander<S, A> nodeExpander;
+	private final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final Metrics.Gauge queueSize = metrics.gauge(METRIC_QUEUE_SIZE);
+	private final Metrics.Gauge maxQueueSize = metrics.gauge(METRIC_MAX_QUEUE_SIZE);
+	private final List<Consumer<Solution<S, A>>> solutionListeners = new ArrayList<>();
+	private long timeLimit = Long.MAX_VALUE;
+
+	private final Map<S, Record<S, A>> records = new HashMap<>();
+	private final PriorityQueue<OpenEntry<S, A>> open = new PriorityQueue<>(Comparator.comparingDouble(e -> e.key));
+	private final List<Record<S, A>> closed = new ArrayList<>();
+	private final List<Record<S, A>> incons = new ArrayList<>();
+	private int openSize;
+	private Node<S, A> incumbent;
+	private boolean hasDeadline;
+	private long deadline;
+	private long startTime;
+
+	/**
+	 * Constructs an ARA* search.
+	 *
+	 * @param h
+	 *            a heuristic function <em>h(n)</em>, which estimates the cost
+	 *            of the cheapest path from the state at node <em>n</em> to a
+	 *            goal state.
+	 * @param initialWeight
+	 *            the inflation factor of the first iteration.
+	 * @param weightDecrement
+	 *            the amount by which the inflation factor is decreased after
+	 *            each iteration (until it reaches 1).
+	 */
+	public AnytimeRepairingAStarSearch(ToDoubleFunction<Node<S, A>> h, double initialWeight, double weightDecrement) {
+		this(h, initialWeight, weightDecrement, new NodeExpander<>());
+	}
+
+	public AnytimeRepairingAStarSearch(ToDoubleFunction<Node<S, A>> h, double initialWeight, double weightDecrement,
+									   NodeExpander<S, A> nodeExpander) {
+		if (weightDecrement <= 0)
+			throw new IllegalArgumentException("Weight decrement must be positive.");
+		this.evalFn = new WeightedAStarSearch.EvalFunction<>(h, initialWeight);
+		this.initialWeight = initialWeight;
+		this.weightDecrement = weightDecrement;
+		this.nodeExpander = nodeExpander;
+	}
+
+	/**
+	 * Limits the time available for each search. When the limit is reached,
+	 * the best solution found so far is returned.
+	 */
+	public void setTimeLimit(long millis) {
+		timeLimit = millis;
+	}
+
+	/**
+	 * Adds a listener which is informed whenever a better solution or a
+	 * tighter suboptimality bound was found.
+	 */
+	public void addSolutionListener(Consumer<Solution<S, A>> listener) {
+		solutionListeners.add(listener);
+	}
+
+	/**
+	 * Removes a listener from the list of solution listeners.
+	 */
+	public boolean removeSolutionListener(Consumer<Solution<S, A>> listener) {
+		return solutionListeners.remove(listener);
+	}
+
+	@Override
+	public Optional<List<A>> findActions(Problem<S, A> p) {
+		return SearchUtils.toActions(findNode(p));
+	}
+
+	@Override
+	public Optional<S> findState(Problem<S, A> p) {
+		return SearchUtils.toState(findNode(p));
+	}
+
+	/**
+	 * Returns the best solution node found before the deadline, or empty if no
+	 * solution was found.
+	 */
+	public Optional<Node<S, A>> findNode(Problem<S, A> p) {
+		// solutions are published as action sequences, parent links are always needed
+		nodeExpander.useParentLinks(true);
+		clear();
+		clearMetrics();
+		startTime = System.nanoTime();
+		hasDeadline = timeLimit < Long.MAX_VALUE / 1000000;
+		deadline = hasDeadline ? startTime + timeLimit * 1000000 : 0;
+
+		double weight = initialWeight;
+		evalFn.setWeight(weight);
+		Node<S, A> root = nodeExpander.createRootNode(p.getInitialState());
+		Record<S, A> rootRecord = getRecord(root);
+		rootRecord.node = root;
+		rootRecord.g = 0;
+		if (p.testSolution(root))
+			incumbent = root;
+		insertIntoOpen(rootRecord, weight);
+
+		double bound = INFINITY;
+		while (!isStopped()) {
+			metrics.incrementInt(METRIC_ITERATIONS);
+			metrics.set(METRIC_WEIGHT, weight);
+			Node<S, A> previous = incumbent;
+			boolean completed = improvePath(p, weight);
+			if (incumbent == null) {
+				if (completed && openSize == 0 && incons.isEmpty())
+					break; // no solution
+			} else {
+				double newBound = completed ? Math.min(weight, getBound()) : Math.min(bound, getBound());
+				if (incumbent != previous || newBound < bound) {
+					bound = newBound;
+					metrics.set(METRIC_SUBOPTIMALITY_BOUND, bound);
+					metrics.set(METRIC_PATH_COST, incumbent.getPathCost());
+					publish(bound);
+				}
+			}
+			if (!completed || bound <= 1 || weight <= 1 && incumbent == null)
+				break;
+			weight = Math.max(1, weight - weightDecrement);
+			evalFn.setWeight(weight);
+			// move all states from INCONS into OPEN, update all priorities, CLOSED <- {}
+			rebuildOpen(weight);
+		}
+		Optional<Node<S, A>> result = Optional.ofNullable(incumbent);
+		clear();
+		return result;
+	}
+
+	/** Modifies the heuristic function. */
+	@Override
+	public void setHeuristicFunction(ToDoubleFunction<Node<S, A>> h) {
+		evalFn.setHeuristicFunction(h);
+	}
+
+	@Override
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public void addNodeListener(Consumer<Node<S, A>> listener)  {
+		nodeExpander.addNodeListener(listener);
+	}
+
+	@Override
+	public boolean removeNodeListener(Consumer<Node<S, A>> listener) {
+		return nodeExpander.removeNodeListener(listener);
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Expands states in f-order until the incumbent cannot be improved with
+	 * the current weight. Returns false if the search was stopped before.
+	 */
+	private boolean improvePath(Problem<S, A> p, double weight) {
+		// while f(goal) > min(f(s) | s in OPEN) do
+		while (!open.isEmpty()) {
+			if (isStopped())
+				return false;
+			OpenEntry<S, A> entry = open.peek();
+			Record<S, A> r = entry.record;
+			if (!r.inOpen || entry.key != r.key) {
+				open.poll(); // outdated entry
+				continue;
+			}
+			if (incumbent != null && incumbent.getPathCost() <= entry.key)
+				return true;
+			// remove s with the smallest f(s) from OPEN, add s to CLOSED
+			open.poll();
+			r.inOpen = false;
+			openSize--;
+			r.closed = true;
+			closed.add(r);
+			updateMetrics();
+
+			nodesExpanded.increment();
+			for (Node<S, A> successor : nodeExpander.expand(r.node, p)) {
+				Record<S, A> sr = getRecord(successor);
+				// if g(s') > g(s) + c(s, s') then
+				if (successor.getPathCost() < sr.g) {
+					sr.g = successor.getPathCost();
+					sr.node = successor;
+					if (p.testSolution(successor) && (incumbent == null
+							|| successor.getPathCost() < incumbent.getPathCost()))
+						incumbent = successor;
+					if (!sr.closed)
+						insertIntoOpen(sr, weight);
+					else if (!sr.inIncons) {
+						sr.inIncons = true;
+						incons.add(sr);
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns g(goal) / min(g(s) + h(s) | s in OPEN or INCONS), which bounds
+	 * the suboptimality of the incumbent.
+	 */
+	private double getBound() {
+		double min = incumbent.getPathCost();
+		for (OpenEntry<S, A> entry : open) {
+			if (entry.record.inOpen && entry.key == entry.record.key)
+				min = Math.min(min, entry.record.g + entry.record.h);
+		}
+		for (Record<S, A> r : incons)
+			min = Math.min(min, r.g + r.h);
+		return min > 0 ? incumbent.getPathCost() / min : 1;
+	}
+
+	private void rebuildOpen(double weight) {
+		List<Record<S, A>> candidates = new ArrayList<>(incons);
+		for (OpenEntry<S, A> entry : open) {
+			if (entry.record.inOpen && entry.key == entry.record.key)
+				candidates.add(entry.record);
+		}
+		open.clear();
+		openSize = 0;
+		for (Record<S, A> r : closed)
+			r.closed = false;
+		closed.clear();
+		for (Record<S, A> r : incons)
+			r.inIncons = false;
+		incons.clear();
+		for (Record<S, A> r : candidates) {
+			r.inOpen = false;
+			insertIntoOpen(r, weight);
+		}
+	}
+
+	private void insertIntoOpen(Record<S, A> r, double weight) {
+		if (!r.inOpen) {
+			r.inOpen = true;
+			openSize++;
+		}
+		r.key = r.g + weight * r.h;
+		open.add(new OpenEntry<>(r, r.key));
+		updateMetrics();
+	}
+
+	private Record<S, A> getRecord(Node<S, A> node) {
+		Record<S, A> r = records.get(node.getState());
+		if (r == null) {
+			r = new Record<>(evalFn.getHeuristicFunction().applyAsDouble(node));
+			records.put(node.getState(), r);
+		}
+		return r;
+	}
+
+	private boolean isStopped() {
+		return Tasks.currIsCancelled() || hasDeadline && System.nanoTime() - deadline > 0;
+	}
+
+	private void publish(double bound) {
+		Solution<S, A> solution = new Solution<>(SearchUtils.getSequenceOfActions(incumbent),
+				incumbent.getPathCost(), bound, (System.nanoTime() - startTime) / 1000000);
+		for (Consumer<Solution<S, A>> listener : solutionListeners)
+			listener.accept(solution);
+	}
+
+	private void clear() {
+		records.clear();
+		open.clear();
+		closed.clear();
+		incons.clear();
+		openSize = 0;
+		incumbent = null;
+	}
+
+	/**
+	 * Sets all metrics to zero.
+	 */
+	private void clearMetrics() {
+		metrics.set(METRIC_NODES_EXPANDED, 0);
+		metrics.set(METRIC_QUEUE_SIZE, 0);
+		metrics.set(METRIC_MAX_QUEUE_SIZE, 0);
+		metrics.set(METRIC_PATH_COST, 0.0);
+		metrics.set(METRIC_ITERATIONS, 0);
+		metrics.set(METRIC_WEIGHT, initialWeight);
+		metrics.set(METRIC_SUBOPTIMALITY_BOUND, INFINITY);
+	}
+
+	private void updateMetrics() {
+		queueSize.set(openSize);
+		maxQueueSize.updateMax(openSize);
+	}
+
+	/**
+	 * An improved solution together with an upper bound for the ratio between
+	 * its costs and the optimal costs.
+	 */
+	public static class Solution<S, A> {
+		private final List<A> actions;
+		private final double pathCost;
+		private final double suboptimalityBound;
+		private final long elapsedTime;
+
+		Solution(List<A> actions, double pathCost, double suboptimalityBound, long elapsedTime) {
+			this.actions = actions;
+			this.pathCost = pathCost;
+			this.suboptimalityBound = suboptimalityBound;
+			this.elapsedTime = elapsedTime;
+		}
+
+		public List<A> getActions() {
+			return actions;
+		}
+
+		public double getPathCost() {
+			return pathCost;
+		}
+
+		public double getSuboptimalityBound() {
+			return suboptimalityBound;
+		}
+
+		/** Returns the time in milliseconds between search start and publication. */
+		public long getElapsedTime() {
+			return elapsedTime;
+		}
+
+		@Override
+		public String toString() {
+			return "[pathCost=" + pathCost + ", suboptimalityBound=" + suboptimalityBound + ", elapsedTime="
+					+ elapsedTime + "]";
+		}
+	}
+
+	/**
+	 * Search data of a state: g-value, heuristic value, current best node, and
+	 * list memberships.
+	 */
+	private static class Record<S, A> {
+		final double h;
+		Node<S, A> node;
+		double g = INFINITY;
+		double key;
+		boolean inOpen;
+		boolean closed;
+		boolean inIncons;
+
+		Record(double h) {
+			this.h = h;
+		}
+	}
+
+	private static class OpenEntry<S, A> {
+		final Record<S, A> record;
+		final double key;
+
+		OpenEntry(Record<S, A> record, double key) {
+			this.record = record;
+			this.key = key;
+		}
+	}
+}
@@ -0,0 +1,351 @@
+package search.informed;
+
+import search.framework.*;
+import search.framework.problem.Problem;
+import search.framework.qsearch.QueueSearch;
+import util.Tasks;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Artificial Intelligence A Modern Approach (3rd Edition): page 125.<br>
+ * <br>
+ * Local beam search keeps track of k states rather than just one. At each
+ * step, all the successors of all k states are generated. If any one is a
+ * goal, the algorithm halts. Otherwise, it selects the k best successors from
+ * the complete list and repeats.<br>
+ * <br>
+ * This implementation supports two modes. In {@link Mode#LAYERED} mode (beam
+ * search), each layer is expanded at once, optionally in parallel, the k best successors are found
+ * by partial selection (no full sort), and duplicates are removed within the
+ * layer and against the most recent layers. In {@link Mode#BEST_FIRST} mode
+ * (bounded-width best-first search), the best node is expanded next, and the
+ * worst node is dropped whenever the frontier exceeds the width. In both modes,
+ * memory is bounded by O(width &times; depth) and the result is not
+ * necessarily optimal.<br>
+ * <br>
+ * <b>Note:</b> Parallel expansion requires a thread-safe problem, evaluation
+ * function, node listeners, and node expander profiler. Node listeners are
+ * then called from worker threads. Problems which share mutable static state,
+ * like <code>core.Puzzle</code>, must be searched sequentially.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class BeamSearch<S, A> implements SearchForActions<S, A>, SearchForStates<S, A>, Informed<S, A> {
+
+	public enum Mode {
+		LAYERED, BEST_FIRST
+	}
+
+	public static final String METRIC_NODES_EXPANDED = QueueSearch.METRIC_NODES_EXPANDED;
+	public static final String METRIC_QUEUE_SIZE = QueueSearch.METRIC_QUEUE_SIZE;
+	public static final String METRIC_MAX_QUEUE_SIZE = QueueSearch.METRIC_MAX_QUEUE_SIZE;
+	public static final String METRIC_PATH_COST = QueueSearch.METRIC_PATH_COST;
+	public static final String METRIC_NODES_DROPPED = "nodesDropped";
+
+	private final ToDoubleFunction<Node<S, A>> evalFn;
+	private final int width;
+	private final Mode mode;
+	private final NodeExpander<S, A> nodeExpander;
+	private final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final Metrics.Counter nodesDropped = metrics.counter(METRIC_NODES_DROPPED);
+	private final Metrics.Gauge queueSize = metrics.gauge(METRIC_QUEUE_SIZE);
+	private final Metrics.Gauge maxQueueSize = metrics.gauge(METRIC_MAX_QUEUE_SIZE);
+	private boolean parallel;
+	private int duplicateWindow = 2;
+	private int maxDepth = Integer.MAX_VALUE;
+
+	public BeamSearch(ToDoubleFunction<Node<S, A>> evalFn, int width) {
+		this(evalFn, width, Mode.LAYERED);
+	}
+
+	/**
+	 * Constructs a beam search.
+	 *
+	 * @param evalFn
+	 *            an evaluation function, e.g. a
+	 *            {@link GreedyBestFirstSearch.EvalFunction}.
+	 * @param width
+	 *            the maximal number of nodes kept per layer (LAYERED) or in the
+	 *            frontier (BEST_FIRST).
+	 * @param mode
+	 *            the search mode.
+	 */
+	public BeamSearch(ToDoubleFunction<Node<S, A>> evalFn, int width, Mode mode) {
+		this(evalFn, width, mode, new NodeExpander<>());
+	}
+
+	public BeamSearch(ToDoubleFunction<Node<S, A>> evalFn, int width, Mode mode, NodeExpander<S, A> nodeExpander) {
+		if (width < 1)
+			throw new IllegalArgumentException("Beam width must be positive.");
+		this.evalFn = evalFn;
+		this.width = width;
+		this.mode = mode;
+		this.nodeExpander = nodeExpander;
+	}
+
+	/**
+	 * Controls whether layers are expanded in parallel (LAYERED mode only).
+	 * Default value is false. Only enable it if the problem, the evaluation
+	 * function, all node listeners, and the profiler of the node expander are
+	 * thread safe.
+	 */
+	public void setParallel(boolean b) {
+		parallel = b;
+	}
+
+	/**
+	 * Sets the number of recent layers (LAYERED) or the multiple of the width
+	 * of recently expanded states (BEST_FIRST) used for duplicate detection.
+	 * Default value is 2.
+	 */
+	public void setDuplicateWindow(int duplicateWindow) {
+		this.duplicateWindow = duplicateWindow;
+	}
+
+	/**
+	 * Limits the depth of the search.
+	 */
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+
+	@Override
+	public Optional<List<A>> findActions(Problem<S, A> p) {
+		nodeExpander.useParentLinks(true);
+		return SearchUtils.toActions(findNode(p));
+	}
+
+	@Override
+	public Optional<S> findState(Problem<S, A> p) {
+		// parent links would keep all ancestors alive
+		nodeExpander.useParentLinks(false);
+		return SearchUtils.toState(findNode(p));
+	}
+
+	/**
+	 * Returns a solution node if a solution was found, empty if the beam ran
+	 * empty, the depth limit was reached, or the task was cancelled by the
+	 * user.
+	 */
+	public Optional<Node<S, A>> findNode(Problem<S, A> p) {
+		clearMetrics();
+		Node<S, A> root = nodeExpander.createRootNode(p.getInitialState());
+		Optional<Node<S, A>> result = p.testSolution(root) ? Optional.of(root)
+				: mode == Mode.LAYERED ? findNodeLayered(p, root) : findNodeBestFirst(p, root);
+		result.ifPresent(node -> metrics.set(METRIC_PATH_COST, node.getPathCost()));
+		return result;
+	}
+
+	/** Modifies the evaluation function if it is a {@link HeuristicEvaluationFunction}. */
+	@Override
+	public void setHeuristicFunction(ToDoubleFunction<Node<S, A>> h) {
+		if (evalFn instanceof HeuristicEvaluationFunction)
+			((HeuristicEvaluationFunction<S, A>) evalFn).setHeuristicFunction(h);
+	}
+
+	@Override
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public void addNodeListener(Consumer<Node<S, A>> listener)  {
+		nodeExpander.addNodeListener(listener);
+	}
+
+	@Override
+	public boolean removeNodeListener(Consumer<Node<S, A>> listener) {
+		return nodeExpander.removeNodeListener(listener);
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	private Optional<Node<S, A>> findNodeLayered(Problem<S, A> p, Node<S, A> root) {
+		List<Node<S, A>> layer = Collections.singletonList(root);
+		Deque<Set<S>> recentLayers = new ArrayDeque<>();
+		recentLayers.add(Collections.singleton(root.getState()));
+
+		for (int depth = 0; !layer.isEmpty() && depth < maxDepth && !Tasks.currIsCancelled(); depth++) {
+			// generate all successors of all nodes of the layer
+			List<Node<S, A>> successors = (parallel ? layer.parallelStream() : layer.stream())
+					.flatMap(node -> nodeExpander.expand(node, p).stream()).collect(Collectors.toList());
+			nodesExpanded.add(layer.size());
+
+			// if any one is a goal, the algorithm halts
+			Node<S, A> goal = null;
+			for (Node<S, A> node : successors) {
+				if (p.testSolution(node) && (goal == null || node.getPathCost() < goal.getPathCost()))
+					goal = node;
+			}
+			if (goal != null)
+				return Optional.of(goal);
+
+			// remove duplicates within the layer and against recent layers
+			Map<S, Node<S, A>> candidates = new LinkedHashMap<>();
+			for (Node<S, A> node : successors) {
+				if (!isRecent(node.getState(), recentLayers))
+					candidates.putIfAbsent(node.getState(), node);
+			}
+			List<Node<S, A>> nodes = new ArrayList<>(candidates.values());
+			double[] f = new double[nodes.size()];
+			IntStream indices = IntStream.range(0, f.length);
+			(parallel ? indices.parallel() : indices).forEach(i -> f[i] = evalFn.applyAsDouble(nodes.get(i)));
+
+			// select the k best successors
+			if (nodes.size() > width) {
+				nodesDropped.add(nodes.size() - width);
+				selectSmallest(nodes, f, width);
+				layer = new ArrayList<>(nodes.subList(0, width));
+			} else {
+				layer = nodes;
+			}
+			Set<S> layerStates = new HashSet<>();
+			for (Node<S, A> node : layer)
+				layerStates.add(node.getState());
+			recentLayers.addLast(layerStates);
+			while (recentLayers.size() > duplicateWindow)
+				recentLayers.removeFirst();
+			updateMetrics(layer.size());
+		}
+		return Optional.empty();
+	}
+
+	private Optional<Node<S, A>> findNodeBestFirst(Problem<S, A> p, Node<S, A> root) {
+		TreeSet<Entry<S, A>> frontier = new TreeSet<>(
+				Comparator.comparingDouble((Entry<S, A> e) -> e.f).thenComparingLong(e -> e.id));
+		Map<S, Entry<S, A>> frontierLookup = new HashMap<>();
+		// bounded set of recently expanded states, the eldest is dropped first
+		int capacity = (int) Math.min(Integer.MAX_VALUE, (long) width * duplicateWindow);
+		Set<S> explored = Collections.newSetFromMap(new LinkedHashMap<S, Boolean>() {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<S, Boolean> eldest) {
+				return size() > capacity;
+			}
+		});
+		long nextId = 0;
+		Entry<S, A> rootEntry = new Entry<>(root, evalFn.applyAsDouble(root), nextId++, 0);
+		frontier.add(rootEntry);
+		frontierLookup.put(root.getState(), rootEntry);
+
+		while (!frontier.isEmpty() && !Tasks.currIsCancelled()) {
+			Entry<S, A> entry = frontier.pollFirst();
+			frontierLookup.remove(entry.node.getState());
+			if (p.testSolution(entry.node))
+				return Optional.of(entry.node);
+			explored.add(entry.node.getState());
+			if (entry.depth >= maxDepth)
+				continue;
+
+			nodesExpanded.increment();
+			for (Node<S, A> successor : nodeExpander.expand(entry.node, p)) {
+				if (explored.contains(successor.getState()))
+					continue;
+				Entry<S, A> newEntry = new Entry<>(successor, evalFn.applyAsDouble(successor), nextId++,
+						entry.depth + 1);
+				Entry<S, A> existing = frontierLookup.get(successor.getState());
+				if (existing != null) {
+					if (existing.f <= newEntry.f)
+						continue;
+					frontier.remove(existing);
+				}
+				frontier.add(newEntry);
+				frontierLookup.put(successor.getState(), newEntry);
+				if (frontier.size() > width) {
+					// drop the worst node
+					Entry<S, A> worst = frontier.pollLast();
+					frontierLookup.remove(worst.node.getState());
+					nodesDropped.increment();
+				}
+			}
+			updateMetrics(frontier.size());
+		}
+		return Optional.empty();
+	}
+
+	private boolean isRecent(S state, Deque<Set<S>> recentLayers) {
+		for (Set<S> layerStates : recentLayers) {
+			if (layerStates.contains(state))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Reorders nodes and f-values so that the k nodes with the smallest
+	 * f-values come first (quickselect, linear time on average).
+	 */
+	private void selectSmallest(List<Node<S, A>> nodes, double[] f, int k) {
+		int left = 0;
+		int right = f.length - 1;
+		while (left < right) {
+			int mid = (left + right) >>> 1;
+			// median of three as pivot
+			double pivot = Math.max(Math.min(f[left], f[mid]), Math.min(Math.max(f[left], f[mid]), f[right]));
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (f[i] < pivot)
+					i++;
+				while (f[j] > pivot)
+					j--;
+				if (i <= j) {
+					swap(nodes, f, i, j);
+					i++;
+					j--;
+				}
+			}
+			if (k - 1 <= j)
+				right = j;
+			else if (k - 1 >= i)
+				left = i;
+			else
+				break;
+		}
+	}
+
+	private void swap(List<Node<S, A>> nodes, double[] f, int i, int j) {
+		double tmp = f[i];
+		f[i] = f[j];
+		f[j] = tmp;
+		Collections.swap(nodes, i, j);
+	}
+
+	/**
+	 * Sets all metrics to zero.
+	 */
+	private void clearMetrics() {
+		metrics.set(METRIC_NODES_EXPANDED, 0);
+		metrics.set(METRIC_QUEUE_SIZE, 0);
+		metrics.set(METRIC_MAX_QUEUE_SIZE, 0);
+		metrics.set(METRIC_PATH_COST, 0.0);
+		metrics.set(METRIC_NODES_DROPPED, 0);
+	}
+
+	private void updateMetrics(int queueSize) {
+		this.queueSize.set(queueSize);
+		maxQueueSize.updateMax(queueSize);
+	}
+
+	private static class Entry<S, A> {
+		final Node<S, A> node;
+		final double f;
+		final long id;
+		final int depth;
+
+		Entry(Node<S, A> node, double f, long id, int depth) {
+			this.node = node;
+			this.f = f;
+			this.id = id;
+			this.depth = depth;
+		}
+	}
+}
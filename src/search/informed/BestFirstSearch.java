@@ -1,10 +1,9 @@
 package search.informed;
 
-import search.framework.Node;
-import search.framework.QueueBasedSearch;
-import search.framework.QueueFactory;
+import search.framework.*;
 import search.framework.qsearch.QueueSearch;
 
+import java.nio.file.Path;
 import java.util.Comparator;
 import java.util.function.ToDoubleFunction;
 
@@ -40,6 +39,75 @@ public class BestFirstSearch<S, A> extends QueueBasedSearch<S, A> implements Inf
 	public BestFirstSearch(QueueSearch<S, A> impl, final ToDoubleFunction<Node<S, A>> evalFn) {
 		super(impl, QueueFactory.createPriorityQueue(Comparator.comparing(evalFn::applyAsDouble)));
 		this.evalFn = evalFn;
+		initEventFunctions();
+	}
+
+	/**
+	 * Constructs a best first search which uses an {@link IndexedHeap} as
+	 * frontier. Indexed heaps remove arbitrary nodes in logarithmic time,
+	 * which speeds up {@link search.framework.qsearch.GraphSearchReducedFrontier}.
+	 *
+	 * @param impl
+	 *            a search space exploration strategy.
+	 * @param evalFn
+	 *            an evaluation function.
+	 * @param heapArity
+	 *            the number of children per heap node, e.g.
+	 *            {@link IndexedHeap#DEFAULT_ARITY}.
+	 */
+	public BestFirstSearch(QueueSearch<S, A> impl, final ToDoubleFunction<Node<S, A>> evalFn, int heapArity) {
+		super(impl, QueueFactory.createIndexedPriorityQueue(heapArity, Comparator.comparing(evalFn::applyAsDouble)));
+		this.evalFn = evalFn;
+		initEventFunctions();
+	}
+
+	/**
+	 * Constructs a best first search which uses a bucket queue as frontier.
+	 * Evaluation function values and path costs must be non-negative integers.
+	 *
+	 * @param impl
+	 *            a search space exploration strategy.
+	 * @param evalFn
+	 *            an evaluation function with integral values.
+	 * @param tieBreaking
+	 *            the order of nodes with equal evaluation.
+	 */
+	public BestFirstSearch(QueueSearch<S, A> impl, final ToDoubleFunction<Node<S, A>> evalFn,
+						   BucketQueue.TieBreaking tieBreaking) {
+		super(impl, QueueFactory.createBucketQueue(evalFn, tieBreaking));
+		this.evalFn = evalFn;
+		initEventFunctions();
+	}
+
+	/**
+	 * Constructs a best first search whose frontier spills nodes with high
+	 * evaluation to disk when it exceeds a memory budget. Evaluation function
+	 * values must be non-negative integers.
+	 *
+	 * @param impl
+	 *            a search space exploration strategy.
+	 * @param evalFn
+	 *            an evaluation function with integral values.
+	 * @param codec
+	 *            converter for spilled nodes, e.g. a {@link NodeCodec}.
+	 * @param memoryBudget
+	 *            the maximum number of frontier nodes kept in memory.
+	 * @param directory
+	 *            directory for the spill files, null for the default
+	 *            temporary-file directory.
+	 */
+	public BestFirstSearch(QueueSearch<S, A> impl, final ToDoubleFunction<Node<S, A>> evalFn,
+						   SpillingBucketQueue.Codec<Node<S, A>> codec, int memoryBudget, Path directory) {
+		super(impl, QueueFactory.createSpillingBucketQueue(evalFn, codec, memoryBudget, directory));
+		this.evalFn = evalFn;
+		initEventFunctions();
+	}
+
+	private void initEventFunctions() {
+		ToDoubleFunction<Node<S, A>> h = null;
+		if (evalFn instanceof HeuristicEvaluationFunction)
+			h = node -> ((HeuristicEvaluationFunction<S, A>) evalFn).getHeuristicFunction().applyAsDouble(node);
+		setEventFunctions(evalFn, h);
 	}
 
 	/** Modifies the evaluation function if it is a {@link HeuristicEvaluationFunction}. */
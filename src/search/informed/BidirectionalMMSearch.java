@@ -0,0 +1,428 @@
+package search.informed;
+
+import search.framework.*;
+import search.framework.jfr.EventLabels;
+import search.framework.jfr.ExpansionEvent;
+import search.framework.jfr.SearchEvent;
+import search.framework.problem.BidirectionalProblem;
+import search.framework.problem.Problem;
+import search.framework.qsearch.QueueSearch;
+import util.Tasks;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Bidirectional heuristic search MM (Holte, Felner, Sharon and Sturtevant
+ * 2016), which is guaranteed to meet in the middle.<br>
+ * <br>
+ *
+ * <pre>
+ * function MM(problem) returns a solution, or failure
+ *   OPEN_F &lt;- {start}, OPEN_B &lt;- {goal}, U &lt;- infinity
+ *   while OPEN_F and OPEN_B are not empty do
+ *     C &lt;- min(prmin_F, prmin_B)
+ *     if U &lt;= max(C, fmin_F, fmin_B, gmin_F + gmin_B + epsilon) then return U
+ *     if C = prmin_F then expand in forward direction else in backward direction
+ *   return failure
+ *
+ * expanding n in direction D:
+ *   move n from OPEN_D to CLOSED_D
+ *   for each child c of n do
+ *     if c in OPEN_D or CLOSED_D and g_D(c) &lt;= g_D(n) + cost(n, c) then continue
+ *     remove c from OPEN_D and CLOSED_D, g_D(c) &lt;- g_D(n) + cost(n, c), add c to OPEN_D
+ *     if c in OPEN_D' then U &lt;- min(U, g_F(c) + g_B(c))
+ * </pre>
+ *
+ * Here, pr_D(n) = max(f_D(n), 2 g_D(n)) with f_D(n) = g_D(n) + h_D(n), and
+ * epsilon is the cost of the cheapest action. The forward heuristic estimates
+ * the costs to the goal, the backward heuristic the costs to the initial state.
+ * With admissible heuristics, the solution is optimal. Both directions share a
+ * single state index which holds the g-values, best nodes, and list
+ * memberships of both directions. Reverse search uses the reverse problem of
+ * the bidirectional problem. Like {@link search.framework.qsearch.BidirectionalSearch},
+ * the solution path is reconstructed by looking up the original action
+ * leading from each state of the backward path to its parent.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class BidirectionalMMSearch<S, A> implements SearchForActions<S, A>, SearchForStates<S, A> {
+
+	public static final String METRIC_NODES_EXPANDED = QueueSearch.METRIC_NODES_EXPANDED;
+	public static final String METRIC_QUEUE_SIZE = QueueSearch.METRIC_QUEUE_SIZE;
+	public static final String METRIC_MAX_QUEUE_SIZE = QueueSearch.METRIC_MAX_QUEUE_SIZE;
+	public static final String METRIC_PATH_COST = QueueSearch.METRIC_PATH_COST;
+	public static final String METRIC_NODES_EXPANDED_FORWARD = "nodesExpandedForward";
+	public static final String METRIC_NODES_EXPANDED_BACKWARD = "nodesExpandedBackward";
+
+	private static final int FWD = 0;
+	private static final int BWD = 1;
+	private static final double INFINITY = Double.MAX_VALUE;
+
+	private final List<ToDoubleFunction<Node<S, A>>> heuristics;
+	private final NodeExpander<S, A> nodeExpander;
+	private final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	// indexed by direction
+	private final Metrics.Counter[] nodesExpandedByDir = { metrics.counter(METRIC_NODES_EXPANDED_FORWARD),
+			metrics.counter(METRIC_NODES_EXPANDED_BACKWARD) };
+	private final Metrics.Gauge queueSize = metrics.gauge(METRIC_QUEUE_SIZE);
+	private final Metrics.Gauge maxQueueSize = metrics.gauge(METRIC_MAX_QUEUE_SIZE);
+	private double epsilon = 0;
+	private SearchProfiler profiler = SearchProfiler.DISABLED;
+
+	// labels of flight recorder events
+	private final EventLabels eventLabels = new EventLabels(getClass().getSimpleName());
+	private int expansionEventCountdown;
+
+	// shared state index of both directions
+	private final Map<S, Entry<S, A>> index = new HashMap<>();
+	private final List<OpenList<S, A>> open = Arrays.asList(new OpenList<>(), new OpenList<>());
+	private double bestCosts;
+	private Entry<S, A> meetingEntry;
+
+	/**
+	 * Constructs an MM search.
+	 *
+	 * @param hForward
+	 *            a heuristic function which estimates the costs to reach a
+	 *            goal state.
+	 * @param hBackward
+	 *            a heuristic function which estimates the costs to reach the
+	 *            initial state.
+	 */
+	public BidirectionalMMSearch(ToDoubleFunction<Node<S, A>> hForward, ToDoubleFunction<Node<S, A>> hBackward) {
+		this(hForward, hBackward, new NodeExpander<>());
+	}
+
+	public BidirectionalMMSearch(ToDoubleFunction<Node<S, A>> hForward, ToDoubleFunction<Node<S, A>> hBackward,
+								 NodeExpander<S, A> nodeExpander) {
+		this.heuristics = Arrays.asList(hForward, hBackward);
+		this.nodeExpander = nodeExpander;
+	}
+
+	/**
+	 * Sets the costs of the cheapest action, which strengthens the stopping
+	 * rule. Default value is 0 which is safe for all problems. Use 1 for the
+	 * N-Puzzle.
+	 */
+	public void setMinStepCost(double epsilon) {
+		this.epsilon = epsilon;
+	}
+
+	@Override
+	public Optional<List<A>> findActions(Problem<S, A> p) {
+		return SearchUtils.toActions(findNode(p));
+	}
+
+	@Override
+	public Optional<S> findState(Problem<S, A> p) {
+		return SearchUtils.toState(findNode(p));
+	}
+
+	/**
+	 * Returns a node of the original problem whose path leads from the initial
+	 * state to a goal state, or empty if no solution exists or the task was
+	 * cancelled by the user.
+	 *
+	 * @param problem
+	 *            a bidirectional search problem
+	 */
+	@SuppressWarnings("unchecked")
+	public Optional<Node<S, A>> findNode(Problem<S, A> problem) {
+		assert (problem instanceof BidirectionalProblem);
+		SearchEvent event = SearchEvent.start(eventLabels);
+		// both paths are needed to construct the solution
+		nodeExpander.useParentLinks(true);
+		expansionEventCountdown = ExpansionEvent.SAMPLE_INTERVAL;
+		clear();
+		clearMetrics();
+
+		List<Problem<S, A>> problems = Arrays.asList(((BidirectionalProblem<S, A>) problem).getOriginalProblem(),
+				((BidirectionalProblem<S, A>) problem).getReverseProblem());
+		profiler = nodeExpander.getProfiler();
+		profiler.startSearch();
+		Optional<Node<S, A>> result;
+		try {
+			result = search(problems);
+		} finally {
+			profiler.endSearch();
+		}
+		result.ifPresent(node -> metrics.set(METRIC_PATH_COST, node.getPathCost()));
+		clear();
+		event.finish(result.isPresent() ? SearchEvent.RESULT_SOLVED
+						: Tasks.currIsCancelled() ? SearchEvent.RESULT_CANCELLED : SearchEvent.RESULT_FAILURE,
+				metrics.getDouble(METRIC_PATH_COST), nodesExpanded.get());
+		return result;
+	}
+
+	@Override
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Returns the labels of the flight recorder events of this search. Every
+	 * search is reported as {@link SearchEvent}, and every 1024th expansion
+	 * as {@link ExpansionEvent}.
+	 */
+	public EventLabels getEventLabels() {
+		return eventLabels;
+	}
+
+	@Override
+	public void addNodeListener(Consumer<Node<S, A>> listener)  {
+		nodeExpander.addNodeListener(listener);
+	}
+
+	@Override
+	public boolean removeNodeListener(Consumer<Node<S, A>> listener) {
+		return nodeExpander.removeNodeListener(listener);
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	private Optional<Node<S, A>> search(List<Problem<S, A>> problems) {
+		for (int dir = FWD; dir <= BWD; dir++) {
+			Node<S, A> root = nodeExpander.createRootNode(problems.get(dir).getInitialState());
+			Entry<S, A> entry = getEntry(root.getState());
+			entry.nodes.set(dir, root);
+			entry.g[dir] = 0;
+			addToOpen(entry, dir, root);
+		}
+		checkMeeting(getEntry(problems.get(BWD).getInitialState()));
+
+		while (!open.get(FWD).isEmpty() && !open.get(BWD).isEmpty() && !Tasks.currIsCancelled()) {
+			OpenList<S, A> openF = open.get(FWD);
+			OpenList<S, A> openB = open.get(BWD);
+			double prMinF = openF.minPriority();
+			double prMinB = openB.minPriority();
+			double c = Math.min(prMinF, prMinB);
+			// if U <= max(C, fmin_F, fmin_B, gmin_F + gmin_B + epsilon) then return U
+			double lowerBound = Math.max(Math.max(c, openF.minF()), Math.max(openB.minF(),
+					openF.minG() + openB.minG() + epsilon));
+			if (bestCosts <= lowerBound)
+				break;
+			profiler.sample();
+			expand(c == prMinF ? FWD : BWD, problems);
+			updateMetrics();
+		}
+		return meetingEntry != null ? getSolution(problems.get(FWD)) : Optional.empty();
+	}
+
+	private void expand(int dir, List<Problem<S, A>> problems) {
+		profiler.start(SearchProfiler.Phase.FRONTIER_REMOVE);
+		Entry<S, A> entry = open.get(dir).poll();
+		profiler.stop();
+		entry.inOpen[dir] = false;
+		entry.closed[dir] = true;
+		nodesExpanded.increment();
+		nodesExpandedByDir[dir].increment();
+		if (--expansionEventCountdown == 0) {
+			expansionEventCountdown = ExpansionEvent.SAMPLE_INTERVAL;
+			emitExpansionEvent(dir, entry.nodes.get(dir));
+		}
+
+		for (Node<S, A> child : nodeExpander.expand(entry.nodes.get(dir), problems.get(dir))) {
+			profiler.start(SearchProfiler.Phase.DUPLICATE_CHECK);
+			Entry<S, A> childEntry = getEntry(child.getState());
+			boolean isDuplicate = (childEntry.inOpen[dir] || childEntry.closed[dir])
+					&& childEntry.g[dir] <= child.getPathCost();
+			profiler.stop();
+			if (isDuplicate)
+				continue;
+			childEntry.closed[dir] = false;
+			childEntry.g[dir] = child.getPathCost();
+			childEntry.nodes.set(dir, child);
+			profiler.start(SearchProfiler.Phase.FRONTIER_INSERT);
+			addToOpen(childEntry, dir, child);
+			profiler.stop();
+			profiler.start(SearchProfiler.Phase.GOAL_TEST);
+			checkMeeting(childEntry);
+			profiler.stop();
+		}
+	}
+
+	private void emitExpansionEvent(int dir, Node<S, A> node) {
+		ExpansionEvent event = new ExpansionEvent();
+		if (event.shouldCommit()) {
+			event.algorithm = eventLabels.getAlgorithm();
+			event.g = node.getPathCost();
+			event.h = heuristics.get(dir).applyAsDouble(node);
+			event.f = event.g + event.h;
+			event.frontierSize = open.get(FWD).size() + open.get(BWD).size();
+			event.commit();
+		}
+	}
+
+	/** U &lt;- min(U, g_F(c) + g_B(c)) if c was reached in both directions. */
+	private void checkMeeting(Entry<S, A> entry) {
+		if (entry.g[FWD] < INFINITY && entry.g[BWD] < INFINITY && entry.g[FWD] + entry.g[BWD] < bestCosts) {
+			bestCosts = entry.g[FWD] + entry.g[BWD];
+			meetingEntry = entry;
+		}
+	}
+
+	private void addToOpen(Entry<S, A> entry, int dir, Node<S, A> node) {
+		boolean isNew = !entry.inOpen[dir];
+		entry.inOpen[dir] = true;
+		entry.version[dir]++;
+		double g = entry.g[dir];
+		double f = g + heuristics.get(dir).applyAsDouble(node);
+		open.get(dir).add(new Item<>(entry, dir, Math.max(f, 2 * g), f, g), isNew);
+	}
+
+	private Entry<S, A> getEntry(S state) {
+		return index.computeIfAbsent(state, s -> new Entry<>());
+	}
+
+	/**
+	 * Extends the forward path to the meeting state by the reversed backward
+	 * path. Returns empty if some backward action cannot be reversed.
+	 */
+	private Optional<Node<S, A>> getSolution(Problem<S, A> orgP) {
+		Node<S, A> orgNode = meetingEntry.nodes.get(FWD);
+		Node<S, A> revNode = meetingEntry.nodes.get(BWD);
+
+		while (revNode.getParent() != null) {
+			S currState = revNode.getState();
+			S nextState = revNode.getParent().getState();
+			A reverseAction = null;
+			for (A action : orgP.getActions(currState)) {
+				if (nextState.equals(orgP.getResult(currState, action))) {
+					reverseAction = action;
+					break;
+				}
+			}
+			if (reverseAction == null)
+				return Optional.empty();
+			double stepCosts = orgP.getStepCosts(currState, reverseAction, nextState);
+			orgNode = nodeExpander.createNode(nextState, orgNode, reverseAction, stepCosts);
+			revNode = revNode.getParent();
+		}
+		return Optional.of(orgNode);
+	}
+
+	private void clear() {
+		index.clear();
+		open.get(FWD).clear();
+		open.get(BWD).clear();
+		bestCosts = INFINITY;
+		meetingEntry = null;
+	}
+
+	/**
+	 * Sets all metrics to zero.
+	 */
+	private void clearMetrics() {
+		metrics.set(METRIC_NODES_EXPANDED, 0);
+		metrics.set(METRIC_NODES_EXPANDED_FORWARD, 0);
+		metrics.set(METRIC_NODES_EXPANDED_BACKWARD, 0);
+		metrics.set(METRIC_QUEUE_SIZE, 0);
+		metrics.set(METRIC_MAX_QUEUE_SIZE, 0);
+		metrics.set(METRIC_PATH_COST, 0.0);
+	}
+
+	private void updateMetrics() {
+		int size = open.get(FWD).size() + open.get(BWD).size();
+		queueSize.set(size);
+		maxQueueSize.updateMax(size);
+	}
+
+	/**
+	 * Index entry holding the search data of a state for both directions.
+	 */
+	private static class Entry<S, A> {
+		final double[] g = {INFINITY, INFINITY};
+		final List<Node<S, A>> nodes = Arrays.asList(null, null);
+		final boolean[] inOpen = new boolean[2];
+		final boolean[] closed = new boolean[2];
+		final int[] version = new int[2];
+	}
+
+	/**
+	 * Open list of one direction. Three heaps provide the minimal priority,
+	 * f-value, and g-value. Outdated heap items are skipped lazily.
+	 */
+	private static class OpenList<S, A> {
+		private final PriorityQueue<Item<S, A>> byPriority = new PriorityQueue<>(
+				Comparator.comparingDouble((Item<S, A> i) -> i.priority).thenComparingDouble(i -> i.g));
+		private final PriorityQueue<Item<S, A>> byF = new PriorityQueue<>(Comparator.comparingDouble(i -> i.f));
+		private final PriorityQueue<Item<S, A>> byG = new PriorityQueue<>(Comparator.comparingDouble(i -> i.g));
+		private int size;
+
+		void add(Item<S, A> item, boolean isNew) {
+			if (isNew)
+				size++;
+			byPriority.add(item);
+			byF.add(item);
+			byG.add(item);
+		}
+
+		Entry<S, A> poll() {
+			Entry<S, A> result = cleanUp(byPriority).entry;
+			byPriority.poll();
+			size--;
+			return result;
+		}
+
+		double minPriority() {
+			return cleanUp(byPriority).priority;
+		}
+
+		double minF() {
+			return cleanUp(byF).f;
+		}
+
+		double minG() {
+			return cleanUp(byG).g;
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		int size() {
+			return size;
+		}
+
+		void clear() {
+			byPriority.clear();
+			byF.clear();
+			byG.clear();
+			size = 0;
+		}
+
+		private Item<S, A> cleanUp(PriorityQueue<Item<S, A>> heap) {
+			while (!heap.isEmpty() && !isValid(heap.peek()))
+				heap.poll();
+			return heap.peek();
+		}
+
+		private boolean isValid(Item<S, A> item) {
+			return item != null && item.entry.inOpen[item.dir] && item.entry.version[item.dir] == item.version;
+		}
+	}
+
+	private static class Item<S, A> {
+		final Entry<S, A> entry;
+		final int dir;
+		final int version;
+		final double priority;
+		final double f;
+		final double g;
+
+		Item(Entry<S, A> entry, int dir, double priority, double f, double g) {
+			this.entry = entry;
+			this.dir = dir;
+			this.version = entry.version[dir];
+			this.priority = priority;
+			this.f = f;
+			this.g = g;
+		}
+	}
+}
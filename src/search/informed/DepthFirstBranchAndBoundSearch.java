@@ -0,0 +1,329 @@
+package search.informed;
+
+import search.framework.*;
+import search.framework.problem.Problem;
+import search.framework.qsearch.QueueSearch;
+import util.Tasks;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Depth-first branch-and-bound search.<br>
+ * <br>
+ *
+ * <pre>
+ * function DFBNB(problem) returns a solution, or failure
+ *   incumbent &lt;- SEED-SOLUTION(problem) or failure, U &lt;- cost of incumbent or infinity
+ *   DFS(problem, MAKE-NODE(problem.INITIAL-STATE))
+ *   return incumbent
+ *
+ * function DFS(problem, node)
+ *   if problem.GOAL-TEST(node.STATE) then incumbent &lt;- node, U &lt;- g(node), return
+ *   for each child c of node in increasing order of f(c) = g(c) + h(c) do
+ *     if f(c) &gt;= U then return
+ *     DFS(problem, c)
+ * </pre>
+ *
+ * The search explores the state space depth first, tries the most promising
+ * successors first, and prunes all nodes whose f-value is not smaller than
+ * the costs of the best solution found so far. Memory stays linear in the
+ * search depth. Each improvement is reported to the solution listeners, so
+ * the search can be used as anytime algorithm. With an admissible heuristic,
+ * the final solution is optimal unless the search was stopped early.
+ * A seed search (e.g. a greedy best-first search) can provide an initial
+ * incumbent, which enables pruning from the beginning. Without seed and bound,
+ * the first dive is only limited by the maximum depth, as states on the
+ * current path are not generated again. The path is kept on an explicit
+ * stack, so deep dives cost heap memory but cannot overflow the call stack.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class DepthFirstBranchAndBoundSearch<S, A> implements SearchForActions<S, A>, SearchForStates<S, A>, Informed<S, A> {
+
+	public static final String METRIC_NODES_EXPANDED = QueueSearch.METRIC_NODES_EXPANDED;
+	public static final String METRIC_QUEUE_SIZE = QueueSearch.METRIC_QUEUE_SIZE;
+	public static final String METRIC_MAX_QUEUE_SIZE = QueueSearch.METRIC_MAX_QUEUE_SIZE;
+	public static final String METRIC_PATH_COST = QueueSearch.METRIC_PATH_COST;
+	public static final String METRIC_SOLUTIONS_FOUND = "solutionsFound";
+	public static final String METRIC_NODES_PRUNED = "nodesPruned";
+
+	private static final double INFINITY = Double.MAX_VALUE;
+
+	private ToDoubleFunction<Node<S, A>> h;
+	private final NodeExpander<S, A> nodeExpander;
+	private final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final Metrics.Counter nodesPruned = metrics.counter(METRIC_NODES_PRUNED);
+	private final Metrics.Gauge queueSize = metrics.gauge(METRIC_QUEUE_SIZE);
+	private final Metrics.Gauge maxQueueSize = metrics.gauge(METRIC_MAX_QUEUE_SIZE);
+	private final List<Consumer<Node<S, A>>> solutionListeners = new ArrayList<>();
+	private SearchForActions<S, A> seedSearch;
+	private double initialBound = INFINITY;
+	private int maxDepth = Integer.MAX_VALUE;
+	private long timeLimit = Long.MAX_VALUE;
+
+	private final Set<S> statesOnPath = new HashSet<>();
+	private Node<S, A> incumbent;
+	private double upperBound;
+	private boolean hasDeadline;
+	private long deadline;
+	private int storedNodes;
+
+	public DepthFirstBranchAndBoundSearch(ToDoubleFunction<Node<S, A>> h) {
+		this(h, new NodeExpander<>());
+	}
+
+	public DepthFirstBranchAndBoundSearch(ToDoubleFunction<Node<S, A>> h, NodeExpander<S, A> nodeExpander) {
+		this.h = h;
+		this.nodeExpander = nodeExpander;
+	}
+
+	/**
+	 * Sets a search which is run before branch-and-bound starts. Its solution
+	 * becomes the first incumbent.
+	 */
+	public void setSeedSearch(SearchForActions<S, A> seedSearch) {
+		this.seedSearch = seedSearch;
+	}
+
+	/**
+	 * Sets an upper bound for the solution costs. Only solutions which are
+	 * cheaper are returned.
+	 */
+	public void setInitialBound(double bound) {
+		initialBound = bound;
+	}
+
+	/** Limits the length of the explored paths. */
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Limits the time available for each search. When the limit is reached,
+	 * the best solution found so far is returned.
+	 */
+	public void setTimeLimit(long millis) {
+		timeLimit = millis;
+	}
+
+	/**
+	 * Adds a listener which is informed whenever a cheaper solution was found.
+	 * It receives the solution node.
+	 */
+	public void addSolutionListener(Consumer<Node<S, A>> listener) {
+		solutionListeners.add(listener);
+	}
+
+	/**
+	 * Removes a listener from the list of solution listeners.
+	 */
+	public boolean removeSolutionListener(Consumer<Node<S, A>> listener) {
+		return solutionListeners.remove(listener);
+	}
+
+	@Override
+	public Optional<List<A>> findActions(Problem<S, A> p) {
+		return SearchUtils.toActions(findNode(p));
+	}
+
+	@Override
+	public Optional<S> findState(Problem<S, A> p) {
+		return SearchUtils.toState(findNode(p));
+	}
+
+	/**
+	 * Returns the best solution node found before the deadline, or empty if no
+	 * solution was found.
+	 */
+	public Optional<Node<S, A>> findNode(Problem<S, A> p) {
+		// solutions are published as nodes and the seed solution is a path, parent links are always needed
+		nodeExpander.useParentLinks(true);
+		clearMetrics();
+		statesOnPath.clear();
+		incumbent = null;
+		upperBound = initialBound;
+		storedNodes = 0;
+		hasDeadline = timeLimit < Long.MAX_VALUE / 1000000;
+		deadline = hasDeadline ? System.nanoTime() + timeLimit * 1000000 : 0;
+
+		Node<S, A> root = nodeExpander.createRootNode(p.getInitialState());
+		if (seedSearch != null)
+			seedSearch.findActions(p).ifPresent(actions -> updateIncumbent(replay(p, root, actions)));
+		double rootF = root.getPathCost() + h.applyAsDouble(root);
+		if (rootF < upperBound)
+			dfs(p, root);
+		statesOnPath.clear();
+		updateMetrics();
+		return Optional.ofNullable(incumbent);
+	}
+
+	@Override
+	public void setHeuristicFunction(ToDoubleFunction<Node<S, A>> h) {
+		this.h = h;
+	}
+
+	@Override
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public void addNodeListener(Consumer<Node<S, A>> listener)  {
+		nodeExpander.addNodeListener(listener);
+	}
+
+	@Override
+	public boolean removeNodeListener(Consumer<Node<S, A>> listener) {
+		return nodeExpander.removeNodeListener(listener);
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Explores the subtree of the root depth first. An explicit stack of
+	 * frames replaces recursion, as the first dive without bound can be very
+	 * deep.
+	 */
+	private void dfs(Problem<S, A> p, Node<S, A> root) {
+		Deque<Frame<S, A>> stack = new ArrayDeque<>();
+		Frame<S, A> rootFrame = enter(p, root, 0);
+		if (rootFrame != null)
+			stack.push(rootFrame);
+		while (!stack.isEmpty()) {
+			Frame<S, A> frame = stack.peek();
+			if (frame.next == frame.successors.size() || isStopped()) {
+				leave(stack.pop());
+				continue;
+			}
+			Successor<S, A> s = frame.successors.get(frame.next);
+			// the bound may have been tightened by a solution found below a sibling
+			if (s.f >= upperBound) {
+				nodesPruned.add(frame.successors.size() - frame.next);
+				frame.next = frame.successors.size();
+				continue;
+			}
+			frame.next++;
+			Frame<S, A> child = enter(p, s.node, frame.depth + 1);
+			if (child != null)
+				stack.push(child);
+		}
+	}
+
+	/**
+	 * Tests the node and expands it. Returns a frame with the ordered
+	 * successors, or null if the node is a goal or a leaf.
+	 */
+	private Frame<S, A> enter(Problem<S, A> p, Node<S, A> node, int depth) {
+		if (p.testSolution(node)) {
+			if (node.getPathCost() < upperBound)
+				updateIncumbent(node);
+			return null;
+		}
+		if (depth >= maxDepth || isStopped())
+			return null;
+
+		nodesExpanded.increment();
+		statesOnPath.add(node.getState());
+		List<Successor<S, A>> successors = new ArrayList<>();
+		for (Node<S, A> child : nodeExpander.expand(node, p)) {
+			if (statesOnPath.contains(child.getState()))
+				continue;
+			double childH = h.applyAsDouble(child);
+			double childF = child.getPathCost() + childH;
+			if (childF < upperBound)
+				successors.add(new Successor<>(child, childF, childH));
+			else
+				nodesPruned.increment();
+		}
+		// move ordering: lowest f first, ties broken in favor of lower h
+		successors.sort(null);
+		storedNodes += successors.size();
+		updateMetrics();
+		return new Frame<>(node, successors, depth);
+	}
+
+	private void leave(Frame<S, A> frame) {
+		storedNodes -= frame.successors.size();
+		statesOnPath.remove(frame.node.getState());
+	}
+
+	/** Creates the path obtained from applying the actions to the root node. */
+	private Node<S, A> replay(Problem<S, A> p, Node<S, A> root, List<A> actions) {
+		Node<S, A> node = root;
+		for (A action : actions) {
+			S state = p.getResult(node.getState(), action);
+			node = nodeExpander.createNode(state, node, action, p.getStepCosts(node.getState(), action, state));
+		}
+		return p.testSolution(node) ? node : null;
+	}
+
+	private void updateIncumbent(Node<S, A> node) {
+		if (node == null || node.getPathCost() >= upperBound)
+			return;
+		incumbent = node;
+		upperBound = node.getPathCost();
+		metrics.incrementInt(METRIC_SOLUTIONS_FOUND);
+		metrics.set(METRIC_PATH_COST, node.getPathCost());
+		for (Consumer<Node<S, A>> listener : solutionListeners)
+			listener.accept(node);
+	}
+
+	private boolean isStopped() {
+		return Tasks.currIsCancelled() || hasDeadline && System.nanoTime() - deadline > 0;
+	}
+
+	/**
+	 * Sets all metrics to zero.
+	 */
+	private void clearMetrics() {
+		metrics.set(METRIC_NODES_EXPANDED, 0);
+		metrics.set(METRIC_QUEUE_SIZE, 0);
+		metrics.set(METRIC_MAX_QUEUE_SIZE, 0);
+		metrics.set(METRIC_PATH_COST, 0.0);
+		metrics.set(METRIC_SOLUTIONS_FOUND, 0);
+		metrics.set(METRIC_NODES_PRUNED, 0);
+	}
+
+	private void updateMetrics() {
+		queueSize.set(storedNodes);
+		maxQueueSize.updateMax(storedNodes);
+	}
+
+	/** Expanded node on the current path with its remaining successors. */
+	private static class Frame<S, A> {
+		final Node<S, A> node;
+		final List<Successor<S, A>> successors;
+		final int depth;
+		int next;
+
+		Frame(Node<S, A> node, List<Successor<S, A>> successors, int depth) {
+			this.node = node;
+			this.successors = successors;
+			this.depth = depth;
+		}
+	}
+
+	private static class Successor<S, A> implements Comparable<Successor<S, A>> {
+		final Node<S, A> node;
+		final double f;
+		final double h;
+
+		Successor(Node<S, A> node, double f, double h) {
+			this.node = node;
+			this.f = f;
+			this.h = h;
+		}
+
+		@Override
+		public int compareTo(Successor<S, A> other) {
+			int result = Double.compare(f, other.f);
+			return result != 0 ? result : Double.compare(h, other.h);
+		}
+	}
+}
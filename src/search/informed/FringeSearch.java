@@ -0,0 +1,272 @@
+package search.informed;
+
+import search.framework.*;
+import search.framework.problem.Problem;
+import search.framework.qsearch.QueueSearch;
+import util.Tasks;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Fringe search (Björnsson, Enzenberger, Holte and Schaeffer 2005).<br>
+ * <br>
+ *
+ * <pre>
+ * function FRINGE-SEARCH(problem) returns a solution, or failure
+ *   F &lt;- (root), C[root] &lt;- (0, null), f_limit &lt;- h(root)
+ *   while F is not empty do
+ *     f_min &lt;- infinity
+ *     for each n in F from left to right do
+ *       f &lt;- g(n) + h(n)
+ *       if f &gt; f_limit then f_min &lt;- min(f, f_min), continue
+ *       if problem.GOAL-TEST(n.STATE) then return SOLUTION(n)
+ *       for each child c of n from right to left do
+ *         if C[c] exists and g(c) &gt;= C[c].g then continue
+ *         if c in F then remove c from F
+ *         insert c into F right after n
+ *         C[c] &lt;- (g(c), n)
+ *       remove n from F
+ *     f_limit &lt;- f_min
+ *   return failure
+ * </pre>
+ *
+ * Like IDA*, the search runs iterations with increasing thresholds but it
+ * keeps the fringe between iterations, so nodes are never regenerated.
+ * Nodes with f-values above the threshold stay in the list for the next
+ * iteration (the "later" part), nodes behind the current position still have
+ * to be visited in the current iteration (the "now" part). No priority queue
+ * is needed. The list is doubly linked over the int slots of the transposition
+ * cache, which stores the g- and h-value and the best node of each state in
+ * arrays. With a consistent heuristic, the solution is optimal. Metrics use
+ * the names of {@link QueueSearch}; queue size denotes the fringe size.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class FringeSearch<S, A> implements SearchForActions<S, A>, SearchForStates<S, A>, Informed<S, A> {
+
+	public static final String METRIC_NODES_EXPANDED = QueueSearch.METRIC_NODES_EXPANDED;
+	public static final String METRIC_QUEUE_SIZE = QueueSearch.METRIC_QUEUE_SIZE;
+	public static final String METRIC_MAX_QUEUE_SIZE = QueueSearch.METRIC_MAX_QUEUE_SIZE;
+	public static final String METRIC_PATH_COST = QueueSearch.METRIC_PATH_COST;
+	public static final String METRIC_ITERATIONS = "iterations";
+	public static final String METRIC_F_LIMIT = "fLimit";
+
+	private static final int NONE = -1;
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private ToDoubleFunction<Node<S, A>> h;
+	private final NodeExpander<S, A> nodeExpander;
+	private final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final Metrics.Gauge queueSize = metrics.gauge(METRIC_QUEUE_SIZE);
+	private final Metrics.Gauge maxQueueSize = metrics.gauge(METRIC_MAX_QUEUE_SIZE);
+
+	// transposition cache: states are mapped to slots of the following arrays
+	private final Map<S, Integer> slots = new HashMap<>();
+	private Node<S, A>[] nodes;
+	private double[] gValues;
+	private double[] hValues;
+	// doubly linked fringe list over the cache slots
+	private int[] prev;
+	private int[] next;
+	private boolean[] inFringe;
+	private int head;
+	private int fringeSize;
+
+	public FringeSearch(ToDoubleFunction<Node<S, A>> h) {
+		this(h, new NodeExpander<>());
+	}
+
+	public FringeSearch(ToDoubleFunction<Node<S, A>> h, NodeExpander<S, A> nodeExpander) {
+		this.h = h;
+		this.nodeExpander = nodeExpander;
+	}
+
+	@Override
+	public Optional<List<A>> findActions(Problem<S, A> p) {
+		nodeExpander.useParentLinks(true);
+		return SearchUtils.toActions(findNode(p));
+	}
+
+	@Override
+	public Optional<S> findState(Problem<S, A> p) {
+		nodeExpander.useParentLinks(false);
+		return SearchUtils.toState(findNode(p));
+	}
+
+	/**
+	 * Returns a solution node if a solution was found, empty if no solution is
+	 * reachable or the task was cancelled by the user.
+	 */
+	public Optional<Node<S, A>> findNode(Problem<S, A> p) {
+		clearMetrics();
+		slots.clear();
+		nodes = newNodeArray(INITIAL_CAPACITY);
+		gValues = new double[INITIAL_CAPACITY];
+		hValues = new double[INITIAL_CAPACITY];
+		prev = new int[INITIAL_CAPACITY];
+		next = new int[INITIAL_CAPACITY];
+		inFringe = new boolean[INITIAL_CAPACITY];
+		head = NONE;
+		fringeSize = 0;
+
+		Node<S, A> root = nodeExpander.createRootNode(p.getInitialState());
+		int rootSlot = getSlot(root);
+		insertAfter(NONE, rootSlot);
+		double fLimit = hValues[rootSlot];
+		Optional<Node<S, A>> result = Optional.empty();
+
+		while (head != NONE && !Tasks.currIsCancelled()) {
+			metrics.incrementInt(METRIC_ITERATIONS);
+			metrics.set(METRIC_F_LIMIT, fLimit);
+			double fMin = Double.POSITIVE_INFINITY;
+			int slot = head;
+			// one pass may visit a large part of the state space, so it can be cancelled
+			while (slot != NONE && !Tasks.currIsCancelled()) {
+				double f = gValues[slot] + hValues[slot];
+				if (f > fLimit) {
+					fMin = Math.min(f, fMin);
+					slot = next[slot];
+					continue;
+				}
+				Node<S, A> node = nodes[slot];
+				if (p.testSolution(node)) {
+					metrics.set(METRIC_PATH_COST, node.getPathCost());
+					result = Optional.of(node);
+					break;
+				}
+				nodesExpanded.increment();
+				List<Node<S, A>> children = nodeExpander.expand(node, p);
+				for (int i = children.size() - 1; i >= 0; i--) {
+					Node<S, A> child = children.get(i);
+					Integer childSlot = slots.get(child.getState());
+					if (childSlot != null) {
+						if (child.getPathCost() >= gValues[childSlot])
+							continue;
+						if (inFringe[childSlot])
+							remove(childSlot);
+						nodes[childSlot] = child;
+						gValues[childSlot] = child.getPathCost();
+					} else {
+						childSlot = getSlot(child);
+					}
+					insertAfter(slot, childSlot);
+				}
+				int successor = next[slot];
+				remove(slot);
+				slot = successor;
+				updateMetrics();
+			}
+			if (result.isPresent() || fMin == Double.POSITIVE_INFINITY)
+				break;
+			fLimit = fMin;
+		}
+		updateMetrics();
+		// release the cache
+		slots.clear();
+		nodes = null;
+		gValues = null;
+		hValues = null;
+		prev = null;
+		next = null;
+		inFringe = null;
+		return result;
+	}
+
+	@Override
+	public void setHeuristicFunction(ToDoubleFunction<Node<S, A>> h) {
+		this.h = h;
+	}
+
+	@Override
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public void addNodeListener(Consumer<Node<S, A>> listener)  {
+		nodeExpander.addNodeListener(listener);
+	}
+
+	@Override
+	public boolean removeNodeListener(Consumer<Node<S, A>> listener) {
+		return nodeExpander.removeNodeListener(listener);
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/** Adds a new cache entry for the state of the node and returns its slot. */
+	private int getSlot(Node<S, A> node) {
+		int slot = slots.size();
+		if (slot == nodes.length)
+			grow();
+		slots.put(node.getState(), slot);
+		nodes[slot] = node;
+		gValues[slot] = node.getPathCost();
+		hValues[slot] = h.applyAsDouble(node);
+		return slot;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <S, A> Node<S, A>[] newNodeArray(int length) {
+		return (Node<S, A>[]) new Node<?, ?>[length];
+	}
+
+	private void grow() {
+		int capacity = nodes.length * 2;
+		nodes = Arrays.copyOf(nodes, capacity);
+		gValues = Arrays.copyOf(gValues, capacity);
+		hValues = Arrays.copyOf(hValues, capacity);
+		prev = Arrays.copyOf(prev, capacity);
+		next = Arrays.copyOf(next, capacity);
+		inFringe = Arrays.copyOf(inFringe, capacity);
+	}
+
+	/** Inserts the slot into the fringe behind the given position (at the head for NONE). */
+	private void insertAfter(int position, int slot) {
+		int successor = position == NONE ? head : next[position];
+		prev[slot] = position;
+		next[slot] = successor;
+		if (successor != NONE)
+			prev[successor] = slot;
+		if (position == NONE)
+			head = slot;
+		else
+			next[position] = slot;
+		inFringe[slot] = true;
+		fringeSize++;
+	}
+
+	private void remove(int slot) {
+		if (prev[slot] == NONE)
+			head = next[slot];
+		else
+			next[prev[slot]] = next[slot];
+		if (next[slot] != NONE)
+			prev[next[slot]] = prev[slot];
+		inFringe[slot] = false;
+		fringeSize--;
+	}
+
+	/**
+	 * Sets all metrics to zero.
+	 */
+	private void clearMetrics() {
+		metrics.set(METRIC_NODES_EXPANDED, 0);
+		metrics.set(METRIC_QUEUE_SIZE, 0);
+		metrics.set(METRIC_MAX_QUEUE_SIZE, 0);
+		metrics.set(METRIC_PATH_COST, 0.0);
+		metrics.set(METRIC_ITERATIONS, 0);
+		metrics.set(METRIC_F_LIMIT, 0.0);
+	}
+
+	private void updateMetrics() {
+		queueSize.set(fringeSize);
+		maxQueueSize.updateMax(fringeSize);
+	}
+}
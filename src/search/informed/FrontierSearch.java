@@ -0,0 +1,361 @@
+package search.informed;
+
+import search.framework.LongQueue;
+import search.framework.Metrics;
+import search.framework.QueueFactory;
+import search.framework.problem.PackedProblem;
+import search.framework.qsearch.QueueSearch;
+import util.Tasks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongFunction;
+import java.util.function.LongToIntFunction;
+
+/**
+ * Frontier A* search with divide-and-conquer solution reconstruction on
+ * packed states (see {@link PackedProblem}) with unit step costs and
+ * reversible moves.<br>
+ * <br>
+ *
+ * <pre>
+ * function FRONTIER-SEARCH(start, goal, cost) returns a move sequence
+ *   if cost &lt;= 1 then return the direct move
+ *   relay-depth &lt;- cost / 2, or h(start) / 2 if cost is unknown
+ *   open &lt;- {start}
+ *   loop do
+ *     n &lt;- node of open with lowest f, remove it from open
+ *     if n = goal then break
+ *     for each move m not in USED(n) do
+ *       s &lt;- result of m in n, g &lt;- g(n) + 1
+ *       add INVERSE(m) to USED(s), if s not in open add it
+ *       if g &lt; g(s) then g(s) &lt;- g, RELAY(s) &lt;- (g = relay-depth ? s : RELAY(n))
+ *   r &lt;- RELAY(goal)
+ *   return FRONTIER-SEARCH(start, r, relay-depth) + FRONTIER-SEARCH(r, goal, g(goal) - relay-depth)
+ * </pre>
+ *
+ * Expanded nodes are not stored. Instead, each open node remembers which of
+ * its moves lead to expanded neighbors (used-operator bits), so expanded
+ * nodes are never generated again. As parent links are missing, each node
+ * stores the state of its ancestor at the relay depth. Once the goal is
+ * found, the subproblems before and after the relay state are solved
+ * recursively with known costs. Memory is bounded by the frontier instead of
+ * all explored nodes, at the cost of about twice the expansions for the
+ * recursion.<br>
+ * <br>
+ * The heuristic must be consistent, a function which returns 0 results in
+ * breadth-first frontier search. As subproblems have other goals, the
+ * heuristic is created by a factory for each goal.
+ *
+ * @param <S> The type used to represent states
+ */
+public class FrontierSearch<S> {
+
+	public static final String METRIC_NODES_EXPANDED = QueueSearch.METRIC_NODES_EXPANDED;
+	public static final String METRIC_MAX_QUEUE_SIZE = QueueSearch.METRIC_MAX_QUEUE_SIZE;
+	public static final String METRIC_PATH_COST = QueueSearch.METRIC_PATH_COST;
+	public static final String METRIC_SUBSEARCHES = "subsearches";
+
+	private final PackedProblem<S> problem;
+	private final LongFunction<LongToIntFunction> heuristicFactory;
+	private final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final Metrics.Counter subsearches = metrics.counter(METRIC_SUBSEARCHES);
+	private final Metrics.Gauge maxQueueSize = metrics.gauge(METRIC_MAX_QUEUE_SIZE);
+	private final OpenTable open = new OpenTable();
+	private final List<LongQueue> buckets = new ArrayList<>();
+
+	/**
+	 * Constructs a frontier search.
+	 *
+	 * @param problem
+	 *            the packed state space with reversible moves and at most 8
+	 *            move indices.
+	 * @param heuristicFactory
+	 *            function which creates a consistent heuristic for the goal
+	 *            with the specified code.
+	 */
+	public FrontierSearch(PackedProblem<S> problem, LongFunction<LongToIntFunction> heuristicFactory) {
+		if (problem.getMaxBranchingFactor() > Byte.SIZE)
+			throw new IllegalArgumentException("Frontier search supports at most " + Byte.SIZE + " moves.");
+		if (!problem.isReversible())
+			throw new IllegalArgumentException("Frontier search requires reversible moves.");
+		this.problem = problem;
+		this.heuristicFactory = heuristicFactory;
+	}
+
+	/**
+	 * Returns the move indices of an optimal path from the initial state to
+	 * the goal state, or empty if no path exists or the task was cancelled by
+	 * the user.
+	 */
+	public Optional<int[]> findMoves(S initialState, S goalState) {
+		return findMoves(problem.encode(initialState), problem.encode(goalState));
+	}
+
+	/**
+	 * Returns the move indices of an optimal path between the states with the
+	 * specified codes.
+	 */
+	public Optional<int[]> findMoves(long start, long goal) {
+		clearMetrics();
+		int[] result = new int[0];
+		if (start != goal) {
+			result = solve(start, goal, -1);
+			if (result != null)
+				metrics.set(METRIC_PATH_COST, result.length);
+		}
+		return Optional.ofNullable(result);
+	}
+
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Returns the moves of an optimal path from start to goal, or null.
+	 * Negative costs mean that the costs are unknown.
+	 */
+	private int[] solve(long start, long goal, int cost) {
+		if (cost == 0)
+			return new int[0];
+		if (cost == 1) {
+			for (int move = 0; move < problem.getMaxBranchingFactor(); move++)
+				if (problem.applyMove(start, move) == goal)
+					return new int[] { move };
+			throw new IllegalStateException("Relay state is not a neighbor.");
+		}
+		LongToIntFunction h = heuristicFactory.apply(goal);
+		int relayDepth = cost >= 0 ? cost / 2 : Math.max(1, h.applyAsInt(start) / 2);
+		if (!search(start, goal, h, cost, relayDepth))
+			return null;
+		int goalCost = open.g;
+		long relay = open.relay;
+		if (relay == PackedProblem.NO_STATE) {
+			// goal is closer than the relay depth, only possible for unknown costs
+			return solve(start, goal, goalCost);
+		}
+		int[] first = solve(start, relay, relayDepth);
+		int[] second = solve(relay, goal, goalCost - relayDepth);
+		if (first == null || second == null)
+			return null;
+		int[] result = new int[first.length + second.length];
+		System.arraycopy(first, 0, result, 0, first.length);
+		System.arraycopy(second, 0, result, first.length, second.length);
+		return result;
+	}
+
+	/**
+	 * Runs frontier A* and returns true if the goal was found. Then the open
+	 * table cursor is left at the goal entry.
+	 */
+	private boolean search(long start, long goal, LongToIntFunction h, int cost, int relayDepth) {
+		subsearches.increment();
+		open.clear();
+		for (LongQueue bucket : buckets)
+			bucket.clear();
+		int queueSize = 0;
+		int minBucket = h.applyAsInt(start);
+		open.put(start, 0, minBucket, relayDepth == 0 ? start : PackedProblem.NO_STATE);
+		push(start, minBucket);
+		queueSize++;
+
+		boolean result = false;
+		while (queueSize > 0 && !Tasks.currIsCancelled()) {
+			while (buckets.get(minBucket).isEmpty())
+				minBucket++;
+			long state = buckets.get(minBucket).remove();
+			queueSize--;
+			// skip outdated entries
+			if (!open.find(state) || open.f != minBucket)
+				continue;
+			if (state == goal) {
+				result = true;
+				break;
+			}
+			int g = open.g + 1;
+			long relay = open.relay;
+			int used = open.used;
+			open.remove();
+			nodesExpanded.increment();
+			for (int move = 0; move < problem.getMaxBranchingFactor(); move++) {
+				if ((used & 1 << move) != 0)
+					continue;
+				long successor = problem.applyMove(state, move);
+				if (successor == PackedProblem.NO_STATE)
+					continue;
+				int back = 1 << problem.getInverseMove(move);
+				long successorRelay = g == relayDepth ? successor : relay;
+				if (open.find(successor)) {
+					open.markUsed(back);
+					if (g < open.g) {
+						open.update(g, open.f - open.g + g, successorRelay);
+						push(successor, open.f);
+						queueSize++;
+						if (open.f < minBucket)
+							minBucket = open.f;
+					}
+				} else {
+					int f = g + h.applyAsInt(successor);
+					// with known costs, nodes beyond the bound are useless
+					if (cost >= 0 && f > cost)
+						continue;
+					open.put(successor, g, f, successorRelay);
+					open.markUsed(back);
+					push(successor, f);
+					queueSize++;
+					if (f < minBucket)
+						minBucket = f;
+				}
+			}
+			maxQueueSize.updateMax(open.size);
+		}
+		return result;
+	}
+
+	private void push(long state, int f) {
+		while (buckets.size() <= f)
+			buckets.add(QueueFactory.createLongLifoQueue());
+		buckets.get(f).add(state);
+	}
+
+	private void clearMetrics() {
+		metrics.set(METRIC_NODES_EXPANDED, 0L);
+		metrics.set(METRIC_MAX_QUEUE_SIZE, 0);
+		metrics.set(METRIC_PATH_COST, 0);
+		metrics.set(METRIC_SUBSEARCHES, 0);
+	}
+
+	/**
+	 * Open addressing hash table of open nodes with path cost, evaluation,
+	 * used-operator bits, and relay state. {@link #find(long)} positions a
+	 * cursor, whose entry is exposed in the fields g, f, used, and relay.
+	 * Removal shifts following entries backwards, so no tombstones are needed.
+	 */
+	private static class OpenTable {
+		private long[] keys;
+		private int[] gValues;
+		private int[] fValues;
+		private byte[] usedBits;
+		private long[] relays;
+		private int size;
+
+		private int cursor;
+		int g;
+		int f;
+		int used;
+		long relay;
+
+		boolean find(long state) {
+			int mask = keys.length - 1;
+			for (int i = hash(state) & mask; keys[i] != PackedProblem.NO_STATE; i = (i + 1) & mask) {
+				if (keys[i] == state) {
+					select(i);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/** Adds a state which is not contained and selects it. */
+		void put(long state, int g, int f, long relay) {
+			if (2 * (size + 1) > keys.length)
+				resize(keys.length * 2);
+			int mask = keys.length - 1;
+			int i = hash(state) & mask;
+			while (keys[i] != PackedProblem.NO_STATE)
+				i = (i + 1) & mask;
+			keys[i] = state;
+			gValues[i] = g;
+			fValues[i] = f;
+			usedBits[i] = 0;
+			relays[i] = relay;
+			size++;
+			select(i);
+		}
+
+		void update(int g, int f, long relay) {
+			gValues[cursor] = g;
+			fValues[cursor] = f;
+			relays[cursor] = relay;
+			select(cursor);
+		}
+
+		void markUsed(int bits) {
+			usedBits[cursor] |= bits;
+			used = usedBits[cursor];
+		}
+
+		/** Removes the selected entry. */
+		void remove() {
+			int mask = keys.length - 1;
+			int hole = cursor;
+			keys[hole] = PackedProblem.NO_STATE;
+			for (int i = (hole + 1) & mask; keys[i] != PackedProblem.NO_STATE; i = (i + 1) & mask) {
+				int home = hash(keys[i]) & mask;
+				// move the entry into the hole if the hole lies on its probe path
+				if (((i - home) & mask) >= ((i - hole) & mask)) {
+					move(i, hole);
+					hole = i;
+				}
+			}
+			size--;
+		}
+
+		void clear() {
+			keys = null;
+			resize(1024);
+		}
+
+		private void select(int i) {
+			cursor = i;
+			g = gValues[i];
+			f = fValues[i];
+			used = usedBits[i];
+			relay = relays[i];
+		}
+
+		private void move(int from, int to) {
+			keys[to] = keys[from];
+			gValues[to] = gValues[from];
+			fValues[to] = fValues[from];
+			usedBits[to] = usedBits[from];
+			relays[to] = relays[from];
+			keys[from] = PackedProblem.NO_STATE;
+		}
+
+		private void resize(int capacity) {
+			long[] oldKeys = keys;
+			int[] oldG = gValues;
+			int[] oldF = fValues;
+			byte[] oldUsed = usedBits;
+			long[] oldRelays = relays;
+			keys = new long[capacity];
+			Arrays.fill(keys, PackedProblem.NO_STATE);
+			gValues = new int[capacity];
+			fValues = new int[capacity];
+			usedBits = new byte[capacity];
+			relays = new long[capacity];
+			size = 0;
+			if (oldKeys != null) {
+				for (int i = 0; i < oldKeys.length; i++) {
+					if (oldKeys[i] != PackedProblem.NO_STATE) {
+						put(oldKeys[i], oldG[i], oldF[i], oldRelays[i]);
+						usedBits[cursor] = oldUsed[i];
+					}
+				}
+			}
+		}
+
+		private static int hash(long state) {
+			long x = state * 0x9E3779B97F4A7C15L;
+			return (int) (x ^ (x >>> 32));
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package search.informed;
+
+import java.util.List;
+
+/**
+ * Operator selection function (OSF) as used by enhanced partial expansion A*.
+ * For a state, it knows the change of the f-value caused by each applicable
+ * action, that is the step costs plus the change of the heuristic value.
+ * Domains typically compute it from precomputed delta-h tables without
+ * generating any successor.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+@FunctionalInterface
+public interface OperatorSelectionFunction<S, A> {
+
+	/**
+	 * Adds all actions applicable in the specified state which change the
+	 * f-value by exactly <code>deltaF</code> to the result list.
+	 *
+	 * @param state
+	 *            the state to be expanded.
+	 * @param deltaF
+	 *            the requested change of the f-value.
+	 * @param result
+	 *            list collecting the selected actions.
+	 * @return the smallest change of the f-value larger than
+	 *         <code>deltaF</code> among the remaining actions, or
+	 *         {@link Double#POSITIVE_INFINITY} if there is none.
+	 */
+	double selectActions(S state, double deltaF, List<A> result);
+}
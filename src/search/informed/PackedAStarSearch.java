@@ -0,0 +1,310 @@
+package search.informed;
+
+import search.framework.Metrics;
+import search.framework.NodeArena;
+import search.framework.OffHeapArena;
+import search.framework.OffHeapNodeArena;
+import search.framework.problem.PackedProblem;
+import search.framework.qsearch.QueueSearch;
+import util.Tasks;
+
+import java.nio.Buffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.LongPredicate;
+import java.util.function.LongToIntFunction;
+
+/**
+ * A* graph search on packed states (see {@link PackedProblem}) with unit step
+ * costs. Nodes are stored in a {@link NodeArena} and referenced by
+ * <code>int</code> handles, the frontier is an array of f-buckets holding
+ * handle stacks, and the best node of each state is found in an open
+ * addressing hash table from state codes to handles. So the search allocates
+ * no objects per node and memory per node is about a quarter of
+ * {@link AStarSearch} with {@link search.framework.qsearch.GraphSearch}.<br>
+ * <br>
+ * Within an f-bucket, nodes are expanded last-in-first-out, which prefers
+ * deeper nodes. Outdated frontier entries, whose state was reached by a
+ * cheaper path later on, are skipped when popped. With a consistent
+ * heuristic, the solution is optimal.<br>
+ * <br>
+ * In off-heap mode, nodes, frontier, and state table are stored in native
+ * memory of an {@link OffHeapArena}, which is released when the search
+ * completes. Then the Java heap only holds a few chunk references, so heap
+ * size and GC pauses do not grow with the search.
+ *
+ * @param <S> The type used to represent states
+ */
+public class PackedAStarSearch<S> {
+
+	public static final String METRIC_NODES_EXPANDED = QueueSearch.METRIC_NODES_EXPANDED;
+	public static final String METRIC_QUEUE_SIZE = QueueSearch.METRIC_QUEUE_SIZE;
+	public static final String METRIC_MAX_QUEUE_SIZE = QueueSearch.METRIC_MAX_QUEUE_SIZE;
+	public static final String METRIC_PATH_COST = QueueSearch.METRIC_PATH_COST;
+	public static final String METRIC_NODES_STORED = "nodesStored";
+	public static final String METRIC_ARENA_BYTES = "arenaBytes";
+	public static final String METRIC_OFF_HEAP_BYTES = "offHeapBytes";
+
+	private final PackedProblem<S> problem;
+	private final LongToIntFunction h;
+	private final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final Metrics.Gauge queueSize = metrics.gauge(METRIC_QUEUE_SIZE);
+	private final Metrics.Gauge maxQueueSize = metrics.gauge(METRIC_MAX_QUEUE_SIZE);
+	private final Metrics.Gauge nodesStored = metrics.gauge(METRIC_NODES_STORED);
+	private final Metrics.Gauge arenaBytes = metrics.gauge(METRIC_ARENA_BYTES);
+	private final Metrics.Gauge offHeapBytes = metrics.gauge(METRIC_OFF_HEAP_BYTES);
+	private boolean offHeap;
+	private NodeArena arena = new NodeArena();
+	private OffHeapArena memory;
+
+	// frontier: f-buckets of handle stacks
+	private IntBuffer[] buckets = new IntBuffer[64];
+	private int[] bucketSizes = new int[64];
+	private int minBucket;
+	private int frontierSize;
+
+	// best node per state
+	private LongBuffer keys;
+	private IntBuffer handles;
+	private int entries;
+
+	/**
+	 * Constructs a packed A* search.
+	 *
+	 * @param problem
+	 *            the packed state space.
+	 * @param h
+	 *            a heuristic function on state codes with values between 0
+	 *            and {@link NodeArena#MAX_VALUE}.
+	 */
+	public PackedAStarSearch(PackedProblem<S> problem, LongToIntFunction h) {
+		this.problem = problem;
+		this.h = h;
+	}
+
+	/**
+	 * Controls whether nodes, frontier, and state table are stored in native
+	 * memory. Default value is false.
+	 */
+	public void setOffHeap(boolean b) {
+		offHeap = b;
+	}
+
+	/**
+	 * Returns the move indices of an optimal path from the initial state to
+	 * the goal state, or empty if no path exists or the task was cancelled by
+	 * the user.
+	 */
+	public Optional<int[]> findMoves(S initialState, S goalState) {
+		long goal = problem.encode(goalState);
+		return findMoves(problem.encode(initialState), code -> code == goal);
+	}
+
+	/**
+	 * Returns the move indices of an optimal path from the state with the
+	 * specified code to a state satisfying the goal test.
+	 */
+	public Optional<int[]> findMoves(long root, LongPredicate goalTest) {
+		clear();
+		clearMetrics();
+		try {
+			return search(root, goalTest);
+		} finally {
+			updateMetrics();
+			if (offHeap)
+				release();
+		}
+	}
+
+	private Optional<int[]> search(long root, LongPredicate goalTest) {
+		push(arena.add(root, NodeArena.NO_NODE, NodeArena.NO_MOVE, 0, h.applyAsInt(root)));
+		put(root, 0);
+
+		int[] result = null;
+		while (frontierSize > 0 && !Tasks.currIsCancelled()) {
+			int node = pop();
+			long state = arena.getState(node);
+			// skip outdated entries
+			if (get(state) != node)
+				continue;
+			if (goalTest.test(state)) {
+				result = arena.getMoves(node);
+				metrics.set(METRIC_PATH_COST, arena.getPathCost(node));
+				break;
+			}
+			nodesExpanded.increment();
+			int g = arena.getPathCost(node) + 1;
+			for (int move = 0; move < problem.getMaxBranchingFactor(); move++) {
+				long successor = problem.applyMove(state, move);
+				if (successor == PackedProblem.NO_STATE)
+					continue;
+				int existing = get(successor);
+				if (existing != NodeArena.NO_NODE && arena.getPathCost(existing) <= g)
+					continue;
+				int child = arena.add(successor, node, move, g, g + h.applyAsInt(successor));
+				put(successor, child);
+				push(child);
+			}
+			updateMetrics();
+		}
+		return Optional.ofNullable(result);
+	}
+
+	/**
+	 * Returns the arena of the last search, which is kept until the next search
+	 * starts. In off-heap mode, its memory is released when the search
+	 * completes, so {@link NodeArena#getMoves(int)},
+	 * {@link NodeArena#getStates(int)}, and {@link NodeArena#getState(int)}
+	 * cannot be used afterwards. The moves of the solution are returned by
+	 * the search itself.
+	 */
+	public NodeArena getArena() {
+		return arena;
+	}
+
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	private void push(int node) {
+		int f = arena.getEvaluation(node);
+		if (f >= buckets.length) {
+			int length = Math.max(f + 1, buckets.length * 2);
+			buckets = Arrays.copyOf(buckets, length);
+			bucketSizes = Arrays.copyOf(bucketSizes, length);
+		}
+		IntBuffer bucket = buckets[f];
+		if (bucket == null) {
+			bucket = buckets[f] = allocateInts(16);
+		} else if (bucketSizes[f] == bucket.capacity()) {
+			IntBuffer larger = allocateInts(bucket.capacity() * 2);
+			larger.put(bucket.clear());
+			free(bucket);
+			bucket = buckets[f] = larger;
+		}
+		bucket.put(bucketSizes[f]++, node);
+		if (f < minBucket)
+			minBucket = f;
+		frontierSize++;
+	}
+
+	private int pop() {
+		while (bucketSizes[minBucket] == 0)
+			minBucket++;
+		frontierSize--;
+		return buckets[minBucket].get(--bucketSizes[minBucket]);
+	}
+
+	/** Returns the handle of the best node for the state, or NO_NODE. */
+	private int get(long state) {
+		int mask = keys.capacity() - 1;
+		for (int i = hash(state) & mask; keys.get(i) != PackedProblem.NO_STATE; i = (i + 1) & mask)
+			if (keys.get(i) == state)
+				return handles.get(i);
+		return NodeArena.NO_NODE;
+	}
+
+	private void put(long state, int handle) {
+		if (2 * (entries + 1) > keys.capacity())
+			rehash(keys.capacity() * 2);
+		int mask = keys.capacity() - 1;
+		int i = hash(state) & mask;
+		while (keys.get(i) != PackedProblem.NO_STATE && keys.get(i) != state)
+			i = (i + 1) & mask;
+		if (keys.get(i) == PackedProblem.NO_STATE) {
+			keys.put(i, state);
+			entries++;
+		}
+		handles.put(i, handle);
+	}
+
+	private void rehash(int capacity) {
+		LongBuffer oldKeys = keys;
+		IntBuffer oldHandles = handles;
+		allocateTable(capacity);
+		for (int i = 0; i < oldKeys.capacity(); i++)
+			if (oldKeys.get(i) != PackedProblem.NO_STATE)
+				put(oldKeys.get(i), oldHandles.get(i));
+		free(oldKeys);
+		free(oldHandles);
+	}
+
+	private void allocateTable(int capacity) {
+		keys = offHeap ? memory.allocateLongs(capacity) : LongBuffer.allocate(capacity);
+		handles = allocateInts(capacity);
+		for (int i = 0; i < capacity; i++)
+			keys.put(i, PackedProblem.NO_STATE);
+		entries = 0;
+	}
+
+	private IntBuffer allocateInts(int capacity) {
+		return offHeap ? memory.allocateInts(capacity) : IntBuffer.allocate(capacity);
+	}
+
+	private void free(Buffer buffer) {
+		if (offHeap)
+			memory.free(buffer);
+	}
+
+	private static int hash(long state) {
+		long x = state * 0x9E3779B97F4A7C15L;
+		return (int) (x ^ (x >>> 32));
+	}
+
+	private void clear() {
+		if (memory != null)
+			memory.close();
+		if (offHeap) {
+			memory = new OffHeapArena();
+			arena = new OffHeapNodeArena(memory);
+		} else {
+			memory = null;
+			if (arena instanceof OffHeapNodeArena)
+				arena = new NodeArena();
+			arena.clear();
+		}
+		Arrays.fill(buckets, null);
+		Arrays.fill(bucketSizes, 0);
+		minBucket = 0;
+		frontierSize = 0;
+		allocateTable(1024);
+	}
+
+	/** Releases the native memory of the search. */
+	private void release() {
+		Arrays.fill(buckets, null);
+		keys = null;
+		handles = null;
+		arena.clear();
+		memory.close();
+	}
+
+	/**
+	 * Sets all metrics to zero.
+	 */
+	private void clearMetrics() {
+		metrics.set(METRIC_NODES_EXPANDED, 0);
+		metrics.set(METRIC_QUEUE_SIZE, 0);
+		metrics.set(METRIC_MAX_QUEUE_SIZE, 0);
+		metrics.set(METRIC_PATH_COST, 0.0);
+		metrics.set(METRIC_NODES_STORED, 0);
+		metrics.set(METRIC_ARENA_BYTES, 0L);
+		metrics.set(METRIC_OFF_HEAP_BYTES, 0L);
+	}
+
+	private void updateMetrics() {
+		queueSize.set(frontierSize);
+		maxQueueSize.updateMax(frontierSize);
+		nodesStored.set(arena.size());
+		arenaBytes.set(arena.getAllocatedBytes());
+		if (memory != null)
+			offHeapBytes.set(memory.getMaxAllocatedBytes());
+	}
+}
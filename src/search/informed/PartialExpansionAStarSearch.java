@@ -0,0 +1,202 @@
+package search.informed;
+
+import search.framework.*;
+import search.framework.problem.Problem;
+import search.framework.qsearch.QueueSearch;
+import util.Tasks;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Enhanced partial expansion A* (EPEA*, Felner et al. 2012).<br>
+ * <br>
+ *
+ * <pre>
+ * function EPEA*(problem) returns a solution, or failure
+ *   F(root) &lt;- f(root), OPEN &lt;- {root}
+ *   while OPEN is not empty do
+ *     n &lt;- node with lowest F in OPEN
+ *     if F(n) = f(n) and problem.GOAL-TEST(n.STATE) then return SOLUTION(n)
+ *     children, F_next &lt;- OSF(n, F(n) - f(n))
+ *     for each child c in children do
+ *       if c was not reached before with lower or equal costs then add c with F(c) &lt;- f(c) to OPEN
+ *     if F_next = infinity then close n else put n back into OPEN with F(n) &lt;- f(n) + F_next
+ * </pre>
+ *
+ * A* generates all successors of a node, although most of them have larger
+ * f-values and many are never expanded before the solution is found. EPEA*
+ * only generates the children whose f-value equals the stored value F of the
+ * expanded node. The operator selection function provides the actions leading
+ * to those children as well as the next larger change of f without generating
+ * any other successor. The parent is put back into the frontier with that
+ * value. With a consistent heuristic, the result is optimal.<br>
+ * <br>
+ * The operator selection function must be consistent with the heuristic
+ * function, i.e. report f(child) - f(n) for each action exactly. Each
+ * (partial) expansion counts as expanded node.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class PartialExpansionAStarSearch<S, A> implements SearchForActions<S, A>, SearchForStates<S, A>, Informed<S, A> {
+
+	public static final String METRIC_NODES_EXPANDED = QueueSearch.METRIC_NODES_EXPANDED;
+	public static final String METRIC_QUEUE_SIZE = QueueSearch.METRIC_QUEUE_SIZE;
+	public static final String METRIC_MAX_QUEUE_SIZE = QueueSearch.METRIC_MAX_QUEUE_SIZE;
+	public static final String METRIC_PATH_COST = QueueSearch.METRIC_PATH_COST;
+	public static final String METRIC_NODES_GENERATED = "nodesGenerated";
+	public static final String METRIC_NODES_REINSERTED = "nodesReinserted";
+
+	private ToDoubleFunction<Node<S, A>> h;
+	private final OperatorSelectionFunction<S, A> osf;
+	private final NodeExpander<S, A> nodeExpander;
+	private final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final Metrics.Counter nodesGenerated = metrics.counter(METRIC_NODES_GENERATED);
+	private final Metrics.Counter nodesReinserted = metrics.counter(METRIC_NODES_REINSERTED);
+	private final Metrics.Gauge queueSize = metrics.gauge(METRIC_QUEUE_SIZE);
+	private final Metrics.Gauge maxQueueSize = metrics.gauge(METRIC_MAX_QUEUE_SIZE);
+
+	/**
+	 * Constructs an enhanced partial expansion A* search.
+	 *
+	 * @param h
+	 *            a consistent heuristic function.
+	 * @param osf
+	 *            an operator selection function which matches the heuristic
+	 *            function.
+	 */
+	public PartialExpansionAStarSearch(ToDoubleFunction<Node<S, A>> h, OperatorSelectionFunction<S, A> osf) {
+		this(h, osf, new NodeExpander<>());
+	}
+
+	public PartialExpansionAStarSearch(ToDoubleFunction<Node<S, A>> h, OperatorSelectionFunction<S, A> osf,
+									   NodeExpander<S, A> nodeExpander) {
+		this.h = h;
+		this.osf = osf;
+		this.nodeExpander = nodeExpander;
+	}
+
+	@Override
+	public Optional<List<A>> findActions(Problem<S, A> p) {
+		nodeExpander.useParentLinks(true);
+		return SearchUtils.toActions(findNode(p));
+	}
+
+	@Override
+	public Optional<S> findState(Problem<S, A> p) {
+		nodeExpander.useParentLinks(false);
+		return SearchUtils.toState(findNode(p));
+	}
+
+	/**
+	 * Returns a solution node if a solution was found, empty if no solution is
+	 * reachable or the task was cancelled by the user.
+	 */
+	public Optional<Node<S, A>> findNode(Problem<S, A> p) {
+		clearMetrics();
+		PriorityQueue<Entry<S, A>> frontier = new PriorityQueue<>();
+		Map<S, Double> bestCosts = new HashMap<>();
+		List<A> actions = new ArrayList<>();
+
+		Node<S, A> root = nodeExpander.createRootNode(p.getInitialState());
+		double rootH = h.applyAsDouble(root);
+		frontier.add(new Entry<>(root, rootH, rootH));
+		bestCosts.put(root.getState(), 0.0);
+
+		while (!frontier.isEmpty() && !Tasks.currIsCancelled()) {
+			Entry<S, A> entry = frontier.poll();
+			Node<S, A> node = entry.node;
+			// skip entries of nodes which were reached by a cheaper path later on
+			if (bestCosts.get(node.getState()) < node.getPathCost())
+				continue;
+			double f = node.getPathCost() + entry.h;
+			double deltaF = entry.priority - f;
+			if (deltaF == 0 && p.testSolution(node)) {
+				metrics.set(METRIC_PATH_COST, node.getPathCost());
+				updateMetrics(frontier.size());
+				return Optional.of(node);
+			}
+			actions.clear();
+			double nextDeltaF = osf.selectActions(node.getState(), deltaF, actions);
+			nodesExpanded.increment();
+			for (Node<S, A> child : nodeExpander.expand(node, p, actions)) {
+				nodesGenerated.increment();
+				Double costs = bestCosts.get(child.getState());
+				if (costs == null || child.getPathCost() < costs) {
+					bestCosts.put(child.getState(), child.getPathCost());
+					double childH = h.applyAsDouble(child);
+					frontier.add(new Entry<>(child, child.getPathCost() + childH, childH));
+				}
+			}
+			if (nextDeltaF != Double.POSITIVE_INFINITY) {
+				entry.priority = f + nextDeltaF;
+				frontier.add(entry);
+				nodesReinserted.increment();
+			}
+			updateMetrics(frontier.size());
+		}
+		return Optional.empty();
+	}
+
+	@Override
+	public void setHeuristicFunction(ToDoubleFunction<Node<S, A>> h) {
+		this.h = h;
+	}
+
+	@Override
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public void addNodeListener(Consumer<Node<S, A>> listener)  {
+		nodeExpander.addNodeListener(listener);
+	}
+
+	@Override
+	public boolean removeNodeListener(Consumer<Node<S, A>> listener) {
+		return nodeExpander.removeNodeListener(listener);
+	}
+
+	/**
+	 * Sets all metrics to zero.
+	 */
+	private void clearMetrics() {
+		metrics.set(METRIC_NODES_EXPANDED, 0);
+		metrics.set(METRIC_NODES_GENERATED, 0);
+		metrics.set(METRIC_NODES_REINSERTED, 0);
+		metrics.set(METRIC_QUEUE_SIZE, 0);
+		metrics.set(METRIC_MAX_QUEUE_SIZE, 0);
+		metrics.set(METRIC_PATH_COST, 0.0);
+	}
+
+	private void updateMetrics(int queueSize) {
+		this.queueSize.set(queueSize);
+		maxQueueSize.updateMax(queueSize);
+	}
+
+	/**
+	 * Frontier entry which stores the node together with its current priority
+	 * F and its heuristic value. Ties are broken in favor of deeper nodes.
+	 */
+	private static class Entry<S, A> implements Comparable<Entry<S, A>> {
+		final Node<S, A> node;
+		final double h;
+		double priority;
+
+		Entry(Node<S, A> node, double priority, double h) {
+			this.node = node;
+			this.priority = priority;
+			this.h = h;
+		}
+
+		@Override
+		public int compareTo(Entry<S, A> other) {
+			int result = Double.compare(priority, other.priority);
+			return result != 0 ? result : Double.compare(other.node.getPathCost(), node.getPathCost());
+		}
+	}
+}
@@ -0,0 +1,279 @@
+package search.informed;
+
+import search.framework.*;
+import search.framework.problem.Problem;
+import search.framework.qsearch.QueueSearch;
+import util.Tasks;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Artificial Intelligence A Modern Approach (3rd Edition): Figure 3.26, page
+ * 99.<br>
+ * <br>
+ *
+ * <pre>
+ * function RECURSIVE-BEST-FIRST-SEARCH(problem) returns a solution, or failure
+ *   return RBFS(problem, MAKE-NODE(problem.INITIAL-STATE), infinity)
+ *
+ * function RBFS(problem, node, f_limit) returns a solution, or failure and a new f-cost limit
+ *   if problem.GOAL-TEST(node.STATE) then return SOLUTION(node)
+ *   successors &lt;- []
+ *   for each action in problem.ACTION(node.STATE) do
+ *       add CHILD-NODE(problem, node, action) into successors
+ *   if successors is empty then return failure, infinity
+ *   for each s in successors do // update f with value from previous search, if any
+ *     s.f &lt;- max(s.g + s.h, node.f)
+ *   loop do
+ *     best &lt;- the lowest f-value node in successors
+ *     if best.f &gt; f_limit then return failure, best.f
+ *     alternative &lt;- the second-lowest f-value among successors
+ *     result, best.f &lt;- RBFS(problem, best, min(f_limit, alternative))
+ *     if result != failure then return result
+ * </pre>
+ *
+ * Figure 3.26 The algorithm for recursive best-first search.<br>
+ * <br>
+ * Only the siblings of the nodes on the current path are stored, so memory
+ * stays linear in the solution depth. In contrast to iterative deepening A*,
+ * backed-up f-values guide re-expansion, which pays off if f-values vary
+ * finely. The metrics use the names of {@link QueueSearch}; queue size
+ * denotes the number of nodes currently stored.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class RecursiveBestFirstSearch<S, A> implements SearchForActions<S, A>, SearchForStates<S, A>, Informed<S, A> {
+
+	public static final String METRIC_NODES_EXPANDED = QueueSearch.METRIC_NODES_EXPANDED;
+	public static final String METRIC_QUEUE_SIZE = QueueSearch.METRIC_QUEUE_SIZE;
+	public static final String METRIC_MAX_QUEUE_SIZE = QueueSearch.METRIC_MAX_QUEUE_SIZE;
+	public static final String METRIC_PATH_COST = QueueSearch.METRIC_PATH_COST;
+	public static final String METRIC_MAX_RECURSIVE_DEPTH = "maxRecursiveDepth";
+
+	private static final double INFINITY = Double.MAX_VALUE;
+
+	private final ToDoubleFunction<Node<S, A>> evalFn;
+	private final boolean avoidLoops;
+	private final NodeExpander<S, A> nodeExpander;
+	private final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final Metrics.Gauge queueSize = metrics.gauge(METRIC_QUEUE_SIZE);
+	private final Metrics.Gauge maxQueueSize = metrics.gauge(METRIC_MAX_QUEUE_SIZE);
+	private final Metrics.Gauge maxRecursiveDepth = metrics.gauge(METRIC_MAX_RECURSIVE_DEPTH);
+	private int storedNodes;
+
+	public RecursiveBestFirstSearch(ToDoubleFunction<Node<S, A>> evalFn) {
+		this(evalFn, false);
+	}
+
+	/**
+	 * Constructs a recursive best first search.
+	 *
+	 * @param evalFn
+	 *            an evaluation function, typically an
+	 *            {@link AStarSearch.EvalFunction}.
+	 * @param avoidLoops
+	 *            if true, successors whose state is part of the current path
+	 *            are not generated.
+	 */
+	public RecursiveBestFirstSearch(ToDoubleFunction<Node<S, A>> evalFn, boolean avoidLoops) {
+		this(evalFn, avoidLoops, new NodeExpander<>());
+	}
+
+	public RecursiveBestFirstSearch(ToDoubleFunction<Node<S, A>> evalFn, boolean avoidLoops,
+									NodeExpander<S, A> nodeExpander) {
+		this.evalFn = evalFn;
+		this.avoidLoops = avoidLoops;
+		this.nodeExpander = nodeExpander;
+	}
+
+	// function RECURSIVE-BEST-FIRST-SEARCH(problem) returns a solution, or
+	// failure
+	@Override
+	public Optional<List<A>> findActions(Problem<S, A> p) {
+		nodeExpander.useParentLinks(true);
+		return SearchUtils.toActions(findNode(p));
+	}
+
+	@Override
+	public Optional<S> findState(Problem<S, A> p) {
+		// parent links are needed to avoid loops
+		nodeExpander.useParentLinks(avoidLoops);
+		return SearchUtils.toState(findNode(p));
+	}
+
+	/**
+	 * Returns a solution node if a solution was found, empty if no solution is
+	 * reachable or the task was cancelled by the user.
+	 */
+	public Optional<Node<S, A>> findNode(Problem<S, A> p) {
+		clearMetrics();
+		// RBFS(problem, MAKE-NODE(INITIAL-STATE[problem]), infinity)
+		Node<S, A> root = nodeExpander.createRootNode(p.getInitialState());
+		SearchResult<S, A> sr = rbfs(p, root, evalFn.applyAsDouble(root), INFINITY, 0);
+		if (sr.hasSolution()) {
+			Node<S, A> s = sr.getSolutionNode();
+			metrics.set(METRIC_PATH_COST, s.getPathCost());
+			return Optional.of(s);
+		}
+		return Optional.empty();
+	}
+
+	/** Modifies the evaluation function if it is a {@link HeuristicEvaluationFunction}. */
+	@Override
+	public void setHeuristicFunction(ToDoubleFunction<Node<S, A>> h) {
+		if (evalFn instanceof HeuristicEvaluationFunction)
+			((HeuristicEvaluationFunction<S, A>) evalFn).setHeuristicFunction(h);
+	}
+
+	@Override
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public void addNodeListener(Consumer<Node<S, A>> listener)  {
+		nodeExpander.addNodeListener(listener);
+	}
+
+	@Override
+	public boolean removeNodeListener(Consumer<Node<S, A>> listener) {
+		return nodeExpander.removeNodeListener(listener);
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	// function RBFS(problem, node, f_limit) returns a solution, or failure and
+	// a new f-cost limit
+	private SearchResult<S, A> rbfs(Problem<S, A> p, Node<S, A> node, double node_f, double fLimit,
+									int recursiveDepth) {
+		updateMetrics(recursiveDepth);
+
+		// if problem.GOAL-TEST(node.STATE) then return SOLUTION(node)
+		if (p.testSolution(node))
+			return new SearchResult<>(node, fLimit);
+
+		// successors <- []
+		// for each action in problem.ACTION(node.STATE) do
+		// add CHILD-NODE(problem, node, action) into successors
+		List<Node<S, A>> successors = expandNode(node, p);
+
+		// if successors is empty then return failure, infinity
+		if (successors.isEmpty())
+			return new SearchResult<>(null, INFINITY);
+
+		// for each s in successors do
+		// update f with value from previous search, if any
+		double[] f = new double[successors.size()];
+		for (int s = 0; s < f.length; s++)
+			// s.f <- max(s.g + s.h, node.f)
+			f[s] = Math.max(evalFn.applyAsDouble(successors.get(s)), node_f);
+
+		storedNodes += f.length;
+		try {
+			// loop do
+			while (!Tasks.currIsCancelled()) {
+				// best <- the lowest f-value node in successors
+				int bestIndex = getBestFValueIndex(f);
+				// if best.f > f_limit then return failure, best.f
+				if (f[bestIndex] > fLimit)
+					return new SearchResult<>(null, f[bestIndex]);
+				// alternative <- the second-lowest f-value among successors
+				int altIndex = getNextBestFValueIndex(f, bestIndex);
+				double alternative = altIndex != -1 ? f[altIndex] : INFINITY;
+				// result, best.f <- RBFS(problem, best, min(f_limit, alternative))
+				SearchResult<S, A> sr = rbfs(p, successors.get(bestIndex), f[bestIndex],
+						Math.min(fLimit, alternative), recursiveDepth + 1);
+				f[bestIndex] = sr.getFCostLimit();
+				// if result != failure then return result
+				if (sr.hasSolution())
+					return sr;
+			}
+			return new SearchResult<>(null, INFINITY);
+		} finally {
+			storedNodes -= f.length;
+		}
+	}
+
+	// the lowest f-value node
+	private int getBestFValueIndex(double[] f) {
+		int lidx = 0;
+		for (int i = 1; i < f.length; i++) {
+			if (f[i] < f[lidx])
+				lidx = i;
+		}
+		return lidx;
+	}
+
+	// the second-lowest f-value, -1 if there is only one successor
+	private int getNextBestFValueIndex(double[] f, int bestIndex) {
+		int lidx = -1;
+		for (int i = 0; i < f.length; i++) {
+			if (i != bestIndex && (lidx == -1 || f[i] < f[lidx]))
+				lidx = i;
+		}
+		return lidx;
+	}
+
+	private List<Node<S, A>> expandNode(Node<S, A> node, Problem<S, A> problem) {
+		nodesExpanded.increment();
+		List<Node<S, A>> result = nodeExpander.expand(node, problem);
+		if (avoidLoops)
+			result.removeIf(child -> isOnPath(child.getState(), node));
+		return result;
+	}
+
+	private boolean isOnPath(S state, Node<S, A> node) {
+		for (Node<S, A> curr = node; curr != null; curr = curr.getParent()) {
+			if (curr.getState().equals(state))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Sets all metrics to zero.
+	 */
+	private void clearMetrics() {
+		storedNodes = 1;
+		metrics.set(METRIC_NODES_EXPANDED, 0);
+		metrics.set(METRIC_QUEUE_SIZE, 0);
+		metrics.set(METRIC_MAX_QUEUE_SIZE, 0);
+		metrics.set(METRIC_MAX_RECURSIVE_DEPTH, 0);
+		metrics.set(METRIC_PATH_COST, 0.0);
+	}
+
+	private void updateMetrics(int recursiveDepth) {
+		queueSize.set(storedNodes);
+		maxQueueSize.updateMax(storedNodes);
+		maxRecursiveDepth.updateMax(recursiveDepth);
+	}
+
+	private static class SearchResult<S, A> {
+		private final Node<S, A> solNode;
+		private final double fCostLimit;
+
+		SearchResult(Node<S, A> solNode, double fCostLimit) {
+			this.solNode = solNode;
+			this.fCostLimit = fCostLimit;
+		}
+
+		boolean hasSolution() {
+			return solNode != null;
+		}
+
+		Node<S, A> getSolutionNode() {
+			return solNode;
+		}
+
+		double getFCostLimit() {
+			return fCostLimit;
+		}
+	}
+}
@@ -0,0 +1,333 @@
+package search.informed;
+
+import search.framework.*;
+import search.framework.problem.Problem;
+import search.framework.qsearch.QueueSearch;
+import util.Tasks;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Artificial Intelligence A Modern Approach (3rd Edition): page 101.<br>
+ * <br>
+ * SMA* (simplified memory-bounded A*) proceeds just like A*, expanding the
+ * best leaf until memory is full. At this point, it cannot add a new node to
+ * the search tree without dropping an old one. SMA* always drops the worst
+ * leaf node - the one with the highest f-value. Like RBFS, SMA* then backs up
+ * the value of the forgotten node to its parent. In this way, the ancestor of
+ * a forgotten subtree knows the quality of the best path in that subtree.
+ * With this information, SMA* regenerates the subtree only when all other
+ * paths have been shown to look worse than the path it has forgotten.<br>
+ * <br>
+ * This implementation expands all successors of a node at once. Ties between
+ * the best nodes are broken in favour of deeper nodes, ties between the worst
+ * leaves in favour of shallower ones. If the cheapest solution path fits into
+ * the node budget, it is found. Nodes whose successors do not fit into memory
+ * anymore get an f-value of infinity. Forgotten successors are identified by
+ * their position in the action list, so <code>Problem.getActions</code> must
+ * return the actions of a state in a stable order.
+ *
+ * @param <S> The type used to represent states
+ * @param <A> The type of the actions to be used to navigate through the state space
+ */
+public class SMAStarSearch<S, A> implements SearchForActions<S, A>, SearchForStates<S, A>, Informed<S, A> {
+
+	public static final String METRIC_NODES_EXPANDED = QueueSearch.METRIC_NODES_EXPANDED;
+	public static final String METRIC_QUEUE_SIZE = QueueSearch.METRIC_QUEUE_SIZE;
+	public static final String METRIC_MAX_QUEUE_SIZE = QueueSearch.METRIC_MAX_QUEUE_SIZE;
+	public static final String METRIC_PATH_COST = QueueSearch.METRIC_PATH_COST;
+	public static final String METRIC_NODES_FORGOTTEN = "nodesForgotten";
+	public static final String METRIC_NODES_REGENERATED = "nodesRegenerated";
+
+	/**
+	 * Rough estimate of the heap size of a search node including its state
+	 * (8-puzzle), used to convert byte budgets into node budgets.
+	 */
+	public static final int ESTIMATED_BYTES_PER_NODE = 256;
+
+	private static final double INFINITY = Double.MAX_VALUE;
+
+	private final ToDoubleFunction<Node<S, A>> evalFn;
+	private final int maxNodes;
+	private final NodeExpander<S, A> nodeExpander;
+	private final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final Metrics.Counter nodesForgotten = metrics.counter(METRIC_NODES_FORGOTTEN);
+	private final Metrics.Counter nodesRegenerated = metrics.counter(METRIC_NODES_REGENERATED);
+	private final Metrics.Gauge queueSize = metrics.gauge(METRIC_QUEUE_SIZE);
+	private final Metrics.Gauge maxQueueSize = metrics.gauge(METRIC_MAX_QUEUE_SIZE);
+
+	// best first: lowest f, deepest
+	private final TreeSet<SMANode<S, A>> open = new TreeSet<>(Comparator
+			.comparingDouble((SMANode<S, A> n) -> n.f).thenComparing(n -> -n.depth).thenComparingLong(n -> n.id));
+	// worst first: highest f, shallowest
+	private final TreeSet<SMANode<S, A>> leaves = new TreeSet<>(Comparator
+			.comparingDouble((SMANode<S, A> n) -> -n.f).thenComparingInt(n -> n.depth).thenComparingLong(n -> -n.id));
+	private int usedNodes;
+	private long nextId;
+
+	/**
+	 * Constructs an SMA* search.
+	 *
+	 * @param evalFn
+	 *            an evaluation function, typically an
+	 *            {@link AStarSearch.EvalFunction}.
+	 * @param maxNodes
+	 *            the maximal number of nodes to be kept in memory.
+	 */
+	public SMAStarSearch(ToDoubleFunction<Node<S, A>> evalFn, int maxNodes) {
+		this(evalFn, maxNodes, new NodeExpander<>());
+	}
+
+	public SMAStarSearch(ToDoubleFunction<Node<S, A>> evalFn, int maxNodes, NodeExpander<S, A> nodeExpander) {
+		this.evalFn = evalFn;
+		this.maxNodes = maxNodes;
+		this.nodeExpander = nodeExpander;
+	}
+
+	/**
+	 * Constructs an SMA* search whose node budget is derived from a memory
+	 * budget in bytes.
+	 */
+	public static <S, A> SMAStarSearch<S, A> withByteBudget(ToDoubleFunction<Node<S, A>> evalFn, long maxBytes,
+															 int bytesPerNode) {
+		return new SMAStarSearch<>(evalFn, (int) Math.min(Integer.MAX_VALUE, maxBytes / bytesPerNode));
+	}
+
+	@Override
+	public Optional<List<A>> findActions(Problem<S, A> p) {
+		return SearchUtils.toActions(findNode(p));
+	}
+
+	@Override
+	public Optional<S> findState(Problem<S, A> p) {
+		return SearchUtils.toState(findNode(p));
+	}
+
+	/**
+	 * Returns a solution node if a solution was found, empty if no solution is
+	 * reachable within the node budget or the task was cancelled by the user.
+	 */
+	public Optional<Node<S, A>> findNode(Problem<S, A> p) {
+		// forgotten nodes are removed from their parents' child lists, parent links are always needed
+		nodeExpander.useParentLinks(true);
+		clear();
+		clearMetrics();
+		SMANode<S, A> root = new SMANode<>(nodeExpander.createRootNode(p.getInitialState()), null, 0, nextId++);
+		root.f = evalFn.applyAsDouble(root);
+		usedNodes = 1;
+		open.add(root);
+		leaves.add(root);
+		updateMetrics();
+
+		while (!open.isEmpty() && !Tasks.currIsCancelled()) {
+			SMANode<S, A> best = open.first();
+			if (best.f == INFINITY)
+				break;
+			if (p.testSolution(best)) {
+				metrics.set(METRIC_PATH_COST, best.getPathCost());
+				Optional<Node<S, A>> result = Optional.of(best);
+				clear();
+				return result;
+			}
+			expand(best, p);
+			updateMetrics();
+		}
+		clear();
+		return Optional.empty();
+	}
+
+	/** Modifies the evaluation function if it is a {@link HeuristicEvaluationFunction}. */
+	@Override
+	public void setHeuristicFunction(ToDoubleFunction<Node<S, A>> h) {
+		if (evalFn instanceof HeuristicEvaluationFunction)
+			((HeuristicEvaluationFunction<S, A>) evalFn).setHeuristicFunction(h);
+	}
+
+	@Override
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public void addNodeListener(Consumer<Node<S, A>> listener)  {
+		nodeExpander.addNodeListener(listener);
+	}
+
+	@Override
+	public boolean removeNodeListener(Consumer<Node<S, A>> listener) {
+		return nodeExpander.removeNodeListener(listener);
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Generates all successors of the node which are not in memory, drops the
+	 * worst leaves if needed, and backs up f-values.
+	 */
+	private void expand(SMANode<S, A> node, Problem<S, A> p) {
+		boolean regeneration = node.expanded;
+		List<Node<S, A>> successors = nodeExpander.expand(node, p);
+		nodesExpanded.increment();
+
+		List<SMANode<S, A>> newChildren = new ArrayList<>();
+		for (int slot = 0; slot < successors.size(); slot++) {
+			if (!node.hasChildInSlot(slot)) {
+				SMANode<S, A> child = new SMANode<>(successors.get(slot), node, slot, nextId++);
+				// pathmax: forgotten values are lower bounds for regenerated children
+				child.f = Math.max(evalFn.applyAsDouble(child), regeneration ? node.forgottenF : node.f);
+				newChildren.add(child);
+			}
+		}
+		node.expanded = true;
+		node.forgottenF = INFINITY;
+
+		while (usedNodes + newChildren.size() > maxNodes) {
+			SMANode<S, A> worst = getWorstLeaf(node);
+			if (worst == null) {
+				// the path to this node leaves no room for its successors
+				removeFromSets(node);
+				node.f = INFINITY;
+				addToSets(node);
+				backUp(node.parent);
+				return;
+			}
+			forget(worst);
+		}
+
+		removeFromSets(node);
+		for (SMANode<S, A> child : newChildren) {
+			node.children.add(child);
+			open.add(child);
+			leaves.add(child);
+		}
+		usedNodes += newChildren.size();
+		if (regeneration)
+			nodesRegenerated.add(newChildren.size());
+		if (node.children.isEmpty())
+			node.f = INFINITY;
+		addToSets(node);
+		backUp(node);
+	}
+
+	/**
+	 * Returns the leaf with highest f-value (shallowest on ties) which is not
+	 * the specified node, or null if there is none.
+	 */
+	private SMANode<S, A> getWorstLeaf(SMANode<S, A> excluded) {
+		for (SMANode<S, A> leaf : leaves) {
+			if (leaf != excluded)
+				return leaf;
+		}
+		return null;
+	}
+
+	/**
+	 * Drops the leaf and remembers its f-value in the parent, which becomes
+	 * a candidate for expansion again.
+	 */
+	private void forget(SMANode<S, A> leaf) {
+		open.remove(leaf);
+		leaves.remove(leaf);
+		SMANode<S, A> parent = leaf.parent;
+		removeFromSets(parent);
+		parent.children.remove(leaf);
+		parent.forgottenF = Math.min(parent.forgottenF, leaf.f);
+		addToSets(parent);
+		usedNodes--;
+		nodesForgotten.increment();
+	}
+
+	/**
+	 * Sets the f-value of the node to the lowest f-value of its successors and
+	 * propagates changes to the ancestors.
+	 */
+	private void backUp(SMANode<S, A> node) {
+		while (node != null && node.expanded) {
+			double f = node.forgottenF;
+			for (SMANode<S, A> child : node.children)
+				f = Math.min(f, child.f);
+			if (f == node.f)
+				break;
+			removeFromSets(node);
+			node.f = f;
+			addToSets(node);
+			node = node.parent;
+		}
+	}
+
+	private void removeFromSets(SMANode<S, A> node) {
+		open.remove(node);
+		leaves.remove(node);
+	}
+
+	/**
+	 * Nodes are candidates for expansion if some of their successors are not
+	 * in memory. Nodes are leaves if none of their successors is in memory.
+	 */
+	private void addToSets(SMANode<S, A> node) {
+		if (!node.expanded || node.forgottenF < INFINITY || node.f == INFINITY && node.children.isEmpty())
+			open.add(node);
+		if (node.children.isEmpty())
+			leaves.add(node);
+	}
+
+	private void clear() {
+		open.clear();
+		leaves.clear();
+		usedNodes = 0;
+		nextId = 0;
+	}
+
+	/**
+	 * Sets all metrics to zero.
+	 */
+	private void clearMetrics() {
+		metrics.set(METRIC_NODES_EXPANDED, 0);
+		metrics.set(METRIC_QUEUE_SIZE, 0);
+		metrics.set(METRIC_MAX_QUEUE_SIZE, 0);
+		metrics.set(METRIC_PATH_COST, 0.0);
+		metrics.set(METRIC_NODES_FORGOTTEN, 0);
+		metrics.set(METRIC_NODES_REGENERATED, 0);
+	}
+
+	private void updateMetrics() {
+		queueSize.set(usedNodes);
+		maxQueueSize.updateMax(usedNodes);
+	}
+
+	/**
+	 * Search tree node with backed-up f-value, links to the successors in
+	 * memory, and the best f-value among the forgotten successors.
+	 */
+	private static class SMANode<S, A> extends Node<S, A> {
+		final SMANode<S, A> parent;
+		final int slot;
+		final int depth;
+		final long id;
+		final List<SMANode<S, A>> children = new ArrayList<>(4);
+		double f;
+		double forgottenF = INFINITY;
+		boolean expanded;
+
+		SMANode(Node<S, A> node, SMANode<S, A> parent, int slot, long id) {
+			super(node.getState(), parent, node.getAction(), node.getPathCost());
+			this.parent = parent;
+			this.slot = slot;
+			this.depth = parent != null ? parent.depth + 1 : 0;
+			this.id = id;
+		}
+
+		boolean hasChildInSlot(int slot) {
+			for (SMANode<S, A> child : children) {
+				if (child.slot == slot)
+					return true;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package search.informed;
+
+import search.framework.Node;
+import search.framework.qsearch.QueueSearch;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Weighted A* search evaluates nodes by f(n) = g(n) + w * h(n) with an
+ * inflation factor w &gt;= 1. With an admissible heuristic, the cost of the
+ * solution found exceeds the optimal costs by factor w at most. Larger weights
+ * usually lead to much faster searches. For w = 1, the search is identical to
+ * A*.
+ */
+public class WeightedAStarSearch<S, A> extends BestFirstSearch<S, A> {
+
+    /**
+     * Constructs a weighted A* search from a specified search space exploration
+     * strategy, a heuristic function, and an inflation factor.
+     *
+     * @param impl   a search space exploration strategy (e.g. TreeSearch, GraphSearch).
+     * @param h      a heuristic function <em>h(n)</em>, which estimates the cost
+     *               of the cheapest path from the state at node <em>n</em> to a
+     *               goal state.
+     * @param weight the inflation factor <em>w</em>.
+     */
+    public WeightedAStarSearch(QueueSearch<S, A> impl, ToDoubleFunction<Node<S, A>> h, double weight) {
+        super(impl, new EvalFunction<>(h, weight));
+    }
+
+
+    public static class EvalFunction<S, A> extends HeuristicEvaluationFunction<S, A> {
+        private double weight;
+
+        public EvalFunction(ToDoubleFunction<Node<S, A>> h, double weight) {
+            this.h = h;
+            setWeight(weight);
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public void setWeight(double weight) {
+            if (weight < 1)
+                throw new IllegalArgumentException("Weight must not be smaller than 1.");
+            this.weight = weight;
+        }
+
+        /**
+         * Returns <em>g(n)</em> the cost to reach the node, plus <em>h(n)</em> the
+         * heuristic cost to get from the specified node to the goal, multiplied
+         * with the weight.
+         *
+         * @param n a node
+         * @return g(n) + w * h(n)
+         */
+        @Override
+        public double applyAsDouble(Node<S, A> n) {
+            // f(n) = g(n) + w * h(n)
+            return n.getPathCost() + weight * h.applyAsDouble(n);
+        }
+    }
+}
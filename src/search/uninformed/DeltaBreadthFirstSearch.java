@@ -0,0 +1,147 @@
+package search.uninformed;
+
+import search.framework.DeltaNodeStore;
+import search.framework.Metrics;
+import search.framework.explored.LongHashExploredSet;
+import search.framework.problem.PackedProblem;
+import search.framework.qsearch.QueueSearch;
+import util.Tasks;
+
+import java.util.Optional;
+import java.util.function.LongPredicate;
+
+/**
+ * Breadth-first graph search on packed states (see {@link PackedProblem})
+ * whose nodes are kept in a {@link DeltaNodeStore}. As nodes are stored in
+ * the order of generation, the frontier is just the range of handles between
+ * the next node to expand and the last generated node, so it needs no memory
+ * of its own. Frontier states are materialized from their parents when they
+ * are expanded. The cache of the store mainly saves replays for siblings,
+ * so its hit rate is moderate on wide frontiers (about 30% for a 31-move
+ * 8-puzzle with default settings, see {@link #METRIC_CACHE_HIT_RATE}).
+ * Duplicates are detected with a {@link LongHashExploredSet} of state codes.
+ * If the problem is reversible, the move leading back to the parent is
+ * skipped.
+ *
+ * @param <S> The type used to represent states
+ */
+public class DeltaBreadthFirstSearch<S> {
+
+	public static final String METRIC_NODES_EXPANDED = QueueSearch.METRIC_NODES_EXPANDED;
+	public static final String METRIC_QUEUE_SIZE = QueueSearch.METRIC_QUEUE_SIZE;
+	public static final String METRIC_MAX_QUEUE_SIZE = QueueSearch.METRIC_MAX_QUEUE_SIZE;
+	public static final String METRIC_PATH_COST = QueueSearch.METRIC_PATH_COST;
+	public static final String METRIC_NODES_STORED = "nodesStored";
+	public static final String METRIC_STORE_BYTES = "storeBytes";
+	public static final String METRIC_CACHE_HIT_RATE = "cacheHitRate";
+
+	private final PackedProblem<S> problem;
+	private final DeltaNodeStore store;
+	private final LongHashExploredSet<Long> explored = new LongHashExploredSet<>(Long::longValue);
+	private final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final Metrics.Gauge queueSize = metrics.gauge(METRIC_QUEUE_SIZE);
+	private final Metrics.Gauge maxQueueSize = metrics.gauge(METRIC_MAX_QUEUE_SIZE);
+	private final boolean reversible;
+
+	public DeltaBreadthFirstSearch(PackedProblem<S> problem) {
+		this(problem, new DeltaNodeStore(problem));
+	}
+
+	public DeltaBreadthFirstSearch(PackedProblem<S> problem, DeltaNodeStore store) {
+		this.problem = problem;
+		this.store = store;
+		reversible = problem.isReversible();
+	}
+
+	/**
+	 * Returns the move indices of a shortest path from the initial state to
+	 * the goal state, or empty if no path exists or the task was cancelled by
+	 * the user.
+	 */
+	public Optional<int[]> findMoves(S initialState, S goalState) {
+		long goal = problem.encode(goalState);
+		return findMoves(problem.encode(initialState), code -> code == goal);
+	}
+
+	/**
+	 * Returns the move indices of a shortest path from the state with the
+	 * specified code to a state satisfying the goal test.
+	 */
+	public Optional<int[]> findMoves(long root, LongPredicate goalTest) {
+		store.clear();
+		explored.clear();
+		clearMetrics();
+		int rootHandle = store.addRoot(root);
+		explored.addCode(root);
+		if (goalTest.test(root))
+			return Optional.of(new int[0]);
+
+		int result = DeltaNodeStore.NO_NODE;
+		int b = problem.getMaxBranchingFactor();
+		for (int node = rootHandle; node < store.size() && result == DeltaNodeStore.NO_NODE; node++) {
+			if (Tasks.currIsCancelled())
+				break;
+			long state = store.getState(node);
+			int back = reversible && node != rootHandle ? problem.getInverseMove(store.getMove(node)) : -1;
+			nodesExpanded.increment();
+			for (int move = 0; move < b; move++) {
+				if (move == back)
+					continue;
+				long successor = problem.applyMove(state, move);
+				if (successor == PackedProblem.NO_STATE || !explored.addCode(successor))
+					continue;
+				int child = store.add(node, move, successor);
+				// early goal test, all nodes of this depth are generated before deeper ones
+				if (goalTest.test(successor)) {
+					result = child;
+					break;
+				}
+			}
+			updateMetrics(store.size() - node - 1);
+		}
+		if (result == DeltaNodeStore.NO_NODE) {
+			updateStoreMetrics();
+			return Optional.empty();
+		}
+		int[] moves = store.getMoves(result);
+		metrics.set(METRIC_PATH_COST, moves.length);
+		updateStoreMetrics();
+		return Optional.of(moves);
+	}
+
+	/** Returns the node store of the last search, which is kept until the next search starts. */
+	public DeltaNodeStore getStore() {
+		return store;
+	}
+
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	private void clearMetrics() {
+		metrics.set(METRIC_NODES_EXPANDED, 0);
+		metrics.set(METRIC_QUEUE_SIZE, 0);
+		metrics.set(METRIC_MAX_QUEUE_SIZE, 0);
+		metrics.set(METRIC_PATH_COST, 0);
+		metrics.set(METRIC_NODES_STORED, 0);
+		metrics.set(METRIC_STORE_BYTES, 0L);
+		metrics.set(METRIC_CACHE_HIT_RATE, 0.0);
+	}
+
+	private void updateMetrics(int queueSize) {
+		this.queueSize.set(queueSize);
+		maxQueueSize.updateMax(queueSize);
+	}
+
+	/** Publishes the final size of the store and the hit rate of its cache, which includes the path replay. */
+	private void updateStoreMetrics() {
+		metrics.set(METRIC_NODES_STORED, store.size());
+		metrics.set(METRIC_STORE_BYTES, store.getAllocatedBytes());
+		metrics.set(METRIC_CACHE_HIT_RATE, store.getCacheHitRate());
+	}
+}
@@ -1,6 +1,9 @@
 package search.uninformed;
 
 import search.framework.*;
+import search.framework.jfr.EventLabels;
+import search.framework.jfr.ExpansionEvent;
+import search.framework.jfr.SearchEvent;
 import search.framework.problem.Problem;
 import util.Tasks;
 
@@ -45,7 +48,11 @@ public class DepthLimitedSearch<S, A> implements SearchForActions<S, A>, SearchF
 	public final Node<S, A> cutoffNode = new Node<>(null);
 	private final int limit;
 	private final NodeExpander<S, A> nodeExpander;
-	private Metrics metrics = new Metrics();
+	private final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+
+	private final EventLabels eventLabels = new EventLabels(getClass().getSimpleName());
+	private int expansionEventCountdown;
 
 	public DepthLimitedSearch(int limit) {
 		this(limit, new NodeExpander<>());
@@ -79,7 +86,22 @@ public class DepthLimitedSearch<S, A> implements SearchForActions<S, A>, SearchF
 	}
 	
 	public Optional<Node<S, A>> findNode(Problem<S, A> p) {
+		SearchEvent event = SearchEvent.start(eventLabels);
+		Optional<Node<S, A>> result = findNodeUnrecorded(p);
+		String label = isCutoffResult(result) ? SearchEvent.RESULT_CUTOFF
+				: result.isPresent() ? SearchEvent.RESULT_SOLVED
+				: Tasks.currIsCancelled() ? SearchEvent.RESULT_CANCELLED : SearchEvent.RESULT_FAILURE;
+		event.finish(label, metrics.getDouble(METRIC_PATH_COST), nodesExpanded.get());
+		return result;
+	}
+
+	/**
+	 * Same as {@link #findNode(Problem)}, but without search event. Iterative
+	 * deepening reports the calls as iterations.
+	 */
+	Optional<Node<S, A>> findNodeUnrecorded(Problem<S, A> p) {
 		clearMetrics();
+		expansionEventCountdown = ExpansionEvent.SAMPLE_INTERVAL;
 		// return RECURSIVE-DLS(MAKE-NODE(INITIAL-STATE[problem]), problem,
 		// limit)
 		Node<S, A> node = recursiveDLS(nodeExpander.createRootNode(p.getInitialState()), p, limit);
@@ -105,7 +127,11 @@ public class DepthLimitedSearch<S, A> implements SearchForActions<S, A>, SearchF
 			// cutoff_occurred? <- false
 			boolean cutoffOccurred = false;
 			// for each action in problem.ACTIONS(node.STATE) do
-			metrics.incrementInt(METRIC_NODES_EXPANDED);
+			nodesExpanded.increment();
+			if (--expansionEventCountdown == 0) {
+				expansionEventCountdown = ExpansionEvent.SAMPLE_INTERVAL;
+				ExpansionEvent.emit(eventLabels.getAlgorithm(), node.getPathCost(), Double.NaN, Double.NaN, -1);
+			}
 			for (Node<S, A> child : nodeExpander.expand(node, problem)) {
 				// child <- CHILD-NODE(problem, node, action)
 				// result <- RECURSIVE-DLS(child, problem, limit - 1)
@@ -128,6 +154,11 @@ public class DepthLimitedSearch<S, A> implements SearchForActions<S, A>, SearchF
 		return node.isPresent() && node.get() == cutoffNode;
 	}
 
+	/** Returns the labels of the flight recorder events of this search. */
+	public EventLabels getEventLabels() {
+		return eventLabels;
+	}
+
 	/**
 	 * Returns all the search metrics.
 	 */
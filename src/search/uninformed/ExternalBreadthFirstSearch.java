@@ -0,0 +1,448 @@
+package search.uninformed;
+
+import search.framework.Metrics;
+import search.framework.problem.PackedProblem;
+import util.Tasks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.LongConsumer;
+
+/**
+ * Breadth-first enumeration of a state space which keeps its depth layers on
+ * disk, so state spaces can be enumerated which do not fit into main memory.
+ * Like {@link LayeredBreadthFirstSearch}, it works layer by layer on packed
+ * state codes (see {@link PackedProblem}), but duplicates are detected with
+ * delay:
+ * <ul>
+ * <li>The current layer is streamed from disk and expanded into a buffer of
+ * fixed size. Each full buffer is sorted, compacted, and written to disk as
+ * sorted run.</li>
+ * <li>When the layer is expanded, all runs are merged and the result is merged
+ * against the previous layers, which removes all duplicates. The new layer is
+ * written as sorted file of codes.</li>
+ * </ul>
+ * All files are accessed sequentially with NIO {@link FileChannel}s. By
+ * default, successors are only merged against the two most recent layers,
+ * which detects all duplicates if every move can be undone by another move
+ * (e.g. the N-Puzzle). Otherwise, merging against all layers must be
+ * activated.<br>
+ * <br>
+ * A layer file is only created after it was written completely. So after a
+ * crash or cancellation, {@link #resume()} continues with the deepest layer
+ * on disk.
+ *
+ * @param <S> The type used to represent states
+ */
+public class ExternalBreadthFirstSearch<S> {
+
+	public static final String METRIC_NODES_EXPANDED = LayeredBreadthFirstSearch.METRIC_NODES_EXPANDED;
+	public static final String METRIC_STATES_VISITED = LayeredBreadthFirstSearch.METRIC_STATES_VISITED;
+	public static final String METRIC_LAYERS = LayeredBreadthFirstSearch.METRIC_LAYERS;
+	public static final String METRIC_MAX_LAYER_SIZE = LayeredBreadthFirstSearch.METRIC_MAX_LAYER_SIZE;
+	public static final String METRIC_RUNS = "runs";
+	public static final String METRIC_BYTES_READ = "bytesRead";
+	public static final String METRIC_BYTES_WRITTEN = "bytesWritten";
+
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 22;
+	private static final int IO_BUFFER_BYTES = 1 << 16;
+	private static final String LAYER_FILE = "layer-%05d.bin";
+	private static final String RUN_FILE = "layer-%05d.run-%05d";
+	private static final String TMP_SUFFIX = ".tmp";
+
+	private final PackedProblem<S> problem;
+	private final Path directory;
+	private final List<Long> layerSizes = new ArrayList<>();
+	private final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final Metrics.Counter statesVisited = metrics.counter(METRIC_STATES_VISITED);
+	private final Metrics.Counter runCount = metrics.counter(METRIC_RUNS);
+	private final Metrics.Counter bytesRead = metrics.counter(METRIC_BYTES_READ);
+	private final Metrics.Counter bytesWritten = metrics.counter(METRIC_BYTES_WRITTEN);
+	private final Metrics.Gauge layerCount = metrics.gauge(METRIC_LAYERS);
+	private final Metrics.Gauge maxLayerSize = metrics.gauge(METRIC_MAX_LAYER_SIZE);
+	private int bufferSize = DEFAULT_BUFFER_SIZE;
+	private boolean mergeAllLayers = false;
+	private int maxDepth = Integer.MAX_VALUE;
+
+	/**
+	 * Creates a search which stores its files in the specified directory. The
+	 * directory is created if necessary.
+	 */
+	public ExternalBreadthFirstSearch(PackedProblem<S> problem, Path directory) {
+		this.problem = problem;
+		this.directory = directory;
+	}
+
+	/**
+	 * Sets the number of codes which are collected in main memory before they
+	 * are written as sorted run. Default is {@link #DEFAULT_BUFFER_SIZE} (32 MB).
+	 */
+	public void setBufferSize(int bufferSize) {
+		if (bufferSize < 1)
+			throw new IllegalArgumentException("Buffer size must be positive.");
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * Controls whether successors are merged against all previous layers or
+	 * only the two most recent ones. Default value is false, which is correct
+	 * for problems with undoable moves.
+	 */
+	public void setMergeAllLayers(boolean b) {
+		mergeAllLayers = b;
+	}
+
+	/**
+	 * Limits the depth of the enumeration. Layers deeper than the limit are not
+	 * generated.
+	 */
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Deletes the files of previous runs, enumerates all states reachable from
+	 * the specified root states, and returns the sizes of the depth layers.
+	 */
+	@SafeVarargs
+	public final List<Long> enumerate(S... roots) {
+		long[] codes = new long[roots.length];
+		for (int i = 0; i < roots.length; i++)
+			codes[i] = problem.encode(roots[i]);
+		return enumerate(codes);
+	}
+
+	/**
+	 * Deletes the files of previous runs, enumerates all states reachable from
+	 * the states with the specified codes, and returns the sizes of the depth
+	 * layers.
+	 */
+	public List<Long> enumerate(long... roots) {
+		try {
+			Files.createDirectories(directory);
+			deleteFiles();
+			clear();
+			long[] layer = roots.clone();
+			Arrays.sort(layer);
+			int size = compact(layer, layer.length);
+			Path tmp = tmpFile(0);
+			try (LongWriter writer = new LongWriter(tmp)) {
+				for (int i = 0; i < size; i++)
+					writer.write(layer[i]);
+			}
+			Files.move(tmp, layerFile(0), StandardCopyOption.ATOMIC_MOVE);
+			addLayer(size);
+			return run();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Continues the enumeration whose layer files were found in the directory
+	 * and returns the sizes of all depth layers. Incomplete layers are
+	 * generated again.
+	 */
+	public List<Long> resume() {
+		try {
+			clear();
+			// runs and temporary files of an interrupted layer
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "layer-*.{run-*,bin" + TMP_SUFFIX + "}")) {
+				for (Path file : files)
+					Files.delete(file);
+			}
+			for (int depth = 0; Files.exists(layerFile(depth)); depth++)
+				addLayer(Files.size(layerFile(depth)) / Long.BYTES);
+			if (layerSizes.isEmpty())
+				throw new IllegalStateException("No layer files found in " + directory + ".");
+			return run();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns the sizes of the layers generated so far. Element d is the number
+	 * of states with distance d from the roots.
+	 */
+	public List<Long> getLayerSizes() {
+		return Collections.unmodifiableList(layerSizes);
+	}
+
+	/** Returns the file which stores the sorted codes of the specified layer. */
+	public Path getLayerFile(int depth) {
+		return layerFile(depth);
+	}
+
+	/**
+	 * Passes the codes of all states with the specified distance from the roots
+	 * to the consumer, in ascending order.
+	 */
+	public void forEachState(int depth, LongConsumer consumer) {
+		try (LongReader reader = new LongReader(layerFile(depth))) {
+			while (reader.hasNext())
+				consumer.accept(reader.next());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/** Deletes all layer and run files of the search directory. */
+	public void deleteFiles() {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "layer-*")) {
+			for (Path file : files)
+				Files.delete(file);
+		} catch (NoSuchFileException e) {
+			// nothing to delete
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	private List<Long> run() throws IOException {
+		long[] buffer = null;
+		for (int depth = layerSizes.size() - 1; layerSizes.get(depth) > 0 && depth < maxDepth; depth++) {
+			if (buffer == null)
+				buffer = new long[Math.max(bufferSize, problem.getMaxBranchingFactor())];
+			List<Path> runs = expand(depth, buffer);
+			if (runs == null)
+				break; // cancelled
+			long size = merge(runs, depth + 1);
+			for (Path run : runs)
+				Files.delete(run);
+			if (size == 0) {
+				Files.delete(layerFile(depth + 1));
+				break;
+			}
+			addLayer(size);
+		}
+		return getLayerSizes();
+	}
+
+	/**
+	 * Expands all states of the layer and writes the successors as sorted
+	 * runs. Returns the run files, or null if the task was cancelled.
+	 */
+	private List<Path> expand(int depth, long[] buffer) throws IOException {
+		List<Path> runs = new ArrayList<>();
+		int[] size = new int[1];
+		PackedProblem.SuccessorConsumer collector = (successor, move) -> buffer[size[0]++] = successor;
+		int b = problem.getMaxBranchingFactor();
+		long expanded = 0;
+		try (LongReader reader = new LongReader(layerFile(depth))) {
+			while (reader.hasNext()) {
+				if (size[0] + b > buffer.length) {
+					if (Tasks.currIsCancelled())
+						return null;
+					runs.add(writeRun(depth + 1, runs.size(), buffer, size[0]));
+					size[0] = 0;
+				}
+				problem.forEachSuccessor(reader.next(), collector);
+				expanded++;
+			}
+		}
+		nodesExpanded.add(expanded);
+		if (size[0] > 0 || runs.isEmpty())
+			runs.add(writeRun(depth + 1, runs.size(), buffer, size[0]));
+		return Tasks.currIsCancelled() ? null : runs;
+	}
+
+	private Path writeRun(int depth, int index, long[] buffer, int size) throws IOException {
+		Arrays.parallelSort(buffer, 0, size);
+		size = compact(buffer, size);
+		Path run = directory.resolve(String.format(RUN_FILE, depth, index));
+		try (LongWriter writer = new LongWriter(run)) {
+			for (int i = 0; i < size; i++)
+				writer.write(buffer[i]);
+		}
+		runCount.increment();
+		return run;
+	}
+
+	/**
+	 * Merges the runs, drops codes of previous layers, and writes the result
+	 * as layer file. Returns the size of the new layer.
+	 */
+	private long merge(List<Path> runs, int depth) throws IOException {
+		List<LongReader> readers = new ArrayList<>();
+		try {
+			PriorityQueue<LongReader> queue = new PriorityQueue<>(Comparator.comparingLong(LongReader::peek));
+			for (Path run : runs) {
+				LongReader reader = new LongReader(run);
+				readers.add(reader);
+				if (reader.hasNext())
+					queue.add(reader);
+			}
+			for (int d = mergeAllLayers ? 0 : Math.max(0, depth - 2); d < depth; d++)
+				readers.add(new LongReader(layerFile(d)));
+			List<LongReader> previousLayers = readers.subList(runs.size(), readers.size());
+
+			long size = 0;
+			long last = PackedProblem.NO_STATE;
+			Path tmp = tmpFile(depth);
+			try (LongWriter writer = new LongWriter(tmp)) {
+				while (!queue.isEmpty()) {
+					LongReader reader = queue.poll();
+					long code = reader.next();
+					if (reader.hasNext())
+						queue.add(reader);
+					if (code == last)
+						continue;
+					last = code;
+					if (!containsAny(previousLayers, code)) {
+						writer.write(code);
+						size++;
+					}
+				}
+			}
+			Files.move(tmp, layerFile(depth), StandardCopyOption.ATOMIC_MOVE);
+			return size;
+		} finally {
+			for (LongReader reader : readers)
+				reader.close();
+		}
+	}
+
+	/** Advances the sorted readers to the code and checks whether one of them contains it. */
+	private boolean containsAny(List<LongReader> sortedReaders, long code) throws IOException {
+		boolean result = false;
+		for (LongReader reader : sortedReaders) {
+			while (reader.hasNext() && reader.peek() < code)
+				reader.next();
+			if (reader.hasNext() && reader.peek() == code)
+				result = true;
+		}
+		return result;
+	}
+
+	/**
+	 * Compacts the sorted array range in place, dropping repeated codes and
+	 * {@link PackedProblem#NO_STATE}. Returns the new size.
+	 */
+	private static int compact(long[] sorted, int length) {
+		int size = 0;
+		for (int i = 0; i < length; i++) {
+			long code = sorted[i];
+			if (code != PackedProblem.NO_STATE && (size == 0 || sorted[size - 1] != code))
+				sorted[size++] = code;
+		}
+		return size;
+	}
+
+	private Path layerFile(int depth) {
+		return directory.resolve(String.format(LAYER_FILE, depth));
+	}
+
+	private Path tmpFile(int depth) {
+		return directory.resolve(String.format(LAYER_FILE, depth) + TMP_SUFFIX);
+	}
+
+	private void clear() {
+		layerSizes.clear();
+		metrics.set(METRIC_NODES_EXPANDED, 0L);
+		metrics.set(METRIC_STATES_VISITED, 0L);
+		metrics.set(METRIC_LAYERS, 0);
+		metrics.set(METRIC_MAX_LAYER_SIZE, 0L);
+		metrics.set(METRIC_RUNS, 0);
+		metrics.set(METRIC_BYTES_READ, 0L);
+		metrics.set(METRIC_BYTES_WRITTEN, 0L);
+	}
+
+	private void addLayer(long size) {
+		layerSizes.add(size);
+		statesVisited.add(size);
+		layerCount.set(layerSizes.size());
+		maxLayerSize.updateMax(size);
+	}
+
+	/**
+	 * Buffered sequential reader of <code>long</code> codes.
+	 */
+	private class LongReader implements AutoCloseable {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES);
+		private boolean eof;
+
+		LongReader(Path file) throws IOException {
+			channel = FileChannel.open(file, StandardOpenOption.READ);
+			buffer.flip();
+		}
+
+		boolean hasNext() throws IOException {
+			if (buffer.remaining() < Long.BYTES && !eof) {
+				buffer.compact();
+				while (buffer.position() < Long.BYTES && !eof) {
+					int count = channel.read(buffer);
+					if (count < 0)
+						eof = true;
+					else
+						bytesRead.add(count);
+				}
+				buffer.flip();
+			}
+			return buffer.remaining() >= Long.BYTES;
+		}
+
+		long peek() {
+			return buffer.getLong(buffer.position());
+		}
+
+		long next() {
+			return buffer.getLong();
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Buffered sequential writer of <code>long</code> codes.
+	 */
+	private class LongWriter implements AutoCloseable {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES);
+
+		LongWriter(Path file) throws IOException {
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+		}
+
+		void write(long code) throws IOException {
+			if (buffer.remaining() < Long.BYTES)
+				flush();
+			buffer.putLong(code);
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining())
+				bytesWritten.add(channel.write(buffer));
+			buffer.clear();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				flush();
+				channel.force(false);
+			} finally {
+				channel.close();
+			}
+		}
+	}
+}
@@ -2,6 +2,9 @@ package search.uninformed;
 
 import core.Puzzle;
 import search.framework.*;
+import search.framework.jfr.EventLabels;
+import search.framework.jfr.IterationEvent;
+import search.framework.jfr.SearchEvent;
 import search.framework.problem.Problem;
 import util.Tasks;
 
@@ -37,6 +40,8 @@ public class IterativeDeepeningSearch<S, A> implements SearchForActions<S, A>, S
 	private final NodeExpander<S, A> nodeExpander;
 	private final Metrics metrics;
 
+	private final EventLabels eventLabels = new EventLabels(getClass().getSimpleName());
+
 	public IterativeDeepeningSearch() {
 		this(new NodeExpander<>());
 	}
@@ -68,19 +73,37 @@ public class IterativeDeepeningSearch<S, A> implements SearchForActions<S, A>, S
 	 * @return
 	 */
 	private Optional<Node<S, A>> findNode(Problem<S, A> p) {
+		SearchEvent event = SearchEvent.start(eventLabels);
 		clearMetrics();
+		Optional<Node<S, A>> result = Optional.empty();
 		// for depth = 0 to infinity do
 		for (int i = 0; !Tasks.currIsCancelled(); i++) {
 			// result <- DEPTH-LIMITED-SEARCH(problem, depth)
+			IterationEvent iterationEvent = IterationEvent.start(eventLabels.getAlgorithm(), i, i);
 			DepthLimitedSearch<S, A> dls = new DepthLimitedSearch<>(i, nodeExpander);
-			Optional<Node<S, A>> result = dls.findNode(p);
+			dls.getEventLabels().set(eventLabels);
+			result = dls.findNodeUnrecorded(p);
 			updateMetrics(dls.getMetrics());
+			boolean cutoff = dls.isCutoffResult(result);
+			iterationEvent.finish(cutoff ? SearchEvent.RESULT_CUTOFF : getResultLabel(result),
+					dls.getMetrics().getLong(METRIC_NODES_EXPANDED));
 			// if result != cutoff then return result
-			if (!dls.isCutoffResult(result))
-				return result;
+			if (!cutoff)
+				break;
+			result = Optional.empty();
 			Puzzle.reset();
 		}
-		return Optional.empty();
+		event.finish(getResultLabel(result), metrics.getDouble(METRIC_PATH_COST),
+				metrics.getLong(METRIC_NODES_EXPANDED));
+		return result;
+	}
+
+	/**
+	 * Returns the labels of the flight recorder events of this search. Each
+	 * depth-limited search is reported as {@link IterationEvent}.
+	 */
+	public EventLabels getEventLabels() {
+		return eventLabels;
 	}
 	
 	@Override
@@ -111,6 +134,11 @@ public class IterativeDeepeningSearch<S, A> implements SearchForActions<S, A>, S
 		metrics.set(METRIC_PATH_COST, 0);
 	}
 
+	private static String getResultLabel(Optional<?> result) {
+		return result.isPresent() ? SearchEvent.RESULT_SOLVED
+				: Tasks.currIsCancelled() ? SearchEvent.RESULT_CANCELLED : SearchEvent.RESULT_FAILURE;
+	}
+
 	private void updateMetrics(Metrics dlsMetrics) {
 		metrics.set(METRIC_NODES_EXPANDED,
 				metrics.getInt(METRIC_NODES_EXPANDED) + dlsMetrics.getInt(METRIC_NODES_EXPANDED));
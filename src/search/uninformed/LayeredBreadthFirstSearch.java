@@ -0,0 +1,233 @@
+package search.uninformed;
+
+import search.framework.Metrics;
+import search.framework.problem.PackedProblem;
+import util.Tasks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Breadth-first enumeration of a state space which works layer by layer on
+ * packed state codes (see {@link PackedProblem}). All states of the current
+ * depth layer are expanded in parallel into a flat <code>long</code> array.
+ * Duplicates are removed by sorting the array in parallel and merging it
+ * against the current and the previous layer. No global explored set is
+ * needed.<br>
+ * <br>
+ * <b>Note:</b> Merging against the two most recent layers only detects all
+ * duplicates if every move can be undone by another move (e.g. the N-Puzzle).
+ * In that case, the successors of layer d can only be part of layers d - 1,
+ * d, and d + 1.<br>
+ * <br>
+ * If layers are retained (default), the search can afterwards answer
+ * "distance from root" queries by binary search. Starting the enumeration from
+ * the goal state provides distances to the goal.
+ *
+ * @param <S> The type used to represent states
+ */
+public class LayeredBreadthFirstSearch<S> {
+
+	public static final String METRIC_NODES_EXPANDED = "nodesExpanded";
+	public static final String METRIC_STATES_VISITED = "statesVisited";
+	public static final String METRIC_LAYERS = "layers";
+	public static final String METRIC_MAX_LAYER_SIZE = "maxLayerSize";
+
+	private final PackedProblem<S> problem;
+	private final List<long[]> layers = new ArrayList<>();
+	private final List<Integer> layerSizes = new ArrayList<>();
+	private final Metrics metrics = new Metrics();
+	private final Metrics.Counter nodesExpanded = metrics.counter(METRIC_NODES_EXPANDED);
+	private final Metrics.Counter statesVisited = metrics.counter(METRIC_STATES_VISITED);
+	private final Metrics.Gauge layerCount = metrics.gauge(METRIC_LAYERS);
+	private final Metrics.Gauge maxLayerSize = metrics.gauge(METRIC_MAX_LAYER_SIZE);
+	private boolean retainLayers = true;
+	private boolean parallel = true;
+	private int maxDepth = Integer.MAX_VALUE;
+
+	public LayeredBreadthFirstSearch(PackedProblem<S> problem) {
+		this.problem = problem;
+	}
+
+	/**
+	 * Controls whether all layers are kept after enumeration (needed for
+	 * distance queries) or only the two most recent ones. Default value is true.
+	 */
+	public void setRetainLayers(boolean b) {
+		retainLayers = b;
+	}
+
+	/**
+	 * Controls whether layers are expanded and sorted in parallel. Default
+	 * value is true.
+	 */
+	public void setParallel(boolean b) {
+		parallel = b;
+	}
+
+	/**
+	 * Limits the depth of the enumeration. Layers deeper than the limit are not
+	 * generated.
+	 */
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Enumerates all states reachable from the specified root states and returns
+	 * the sizes of the depth layers.
+	 */
+	@SafeVarargs
+	public final List<Integer> enumerate(S... roots) {
+		long[] codes = new long[roots.length];
+		for (int i = 0; i < roots.length; i++)
+			codes[i] = problem.encode(roots[i]);
+		return enumerate(codes);
+	}
+
+	/**
+	 * Enumerates all states reachable from the states with the specified root
+	 * codes and returns the sizes of the depth layers.
+	 */
+	public List<Integer> enumerate(long... roots) {
+		clear();
+		long[] previous = new long[0];
+		long[] current = roots.clone();
+		Arrays.sort(current);
+		current = removeDuplicates(current, previous, previous);
+
+		for (int depth = 0; current.length > 0 && !Tasks.currIsCancelled(); depth++) {
+			addLayer(current);
+			if (depth == maxDepth)
+				break;
+			long[] next = expand(current);
+			if (parallel)
+				Arrays.parallelSort(next);
+			else
+				Arrays.sort(next);
+			next = removeDuplicates(next, current, previous);
+			if (!retainLayers && layers.size() > 1)
+				layers.set(layers.size() - 2, null);
+			previous = current;
+			current = next;
+		}
+		return getLayerSizes();
+	}
+
+	/**
+	 * Returns the sizes of the layers generated by the last enumeration.
+	 * Element d is the number of states with distance d from the roots.
+	 */
+	public List<Integer> getLayerSizes() {
+		return Collections.unmodifiableList(layerSizes);
+	}
+
+	/**
+	 * Returns the sorted codes of all states with the specified distance from
+	 * the roots.
+	 */
+	public long[] getLayer(int depth) {
+		long[] layer = layers.get(depth);
+		if (layer == null)
+			throw new IllegalStateException("Layer " + depth + " was not retained.");
+		return layer;
+	}
+
+	/**
+	 * Returns the distance from the roots to the specified state, or -1 if the
+	 * state was not reached.
+	 */
+	public int getDistance(S state) {
+		return getDistance(problem.encode(state));
+	}
+
+	/**
+	 * Returns the distance from the roots to the state with the specified code,
+	 * or -1 if the state was not reached.
+	 */
+	public int getDistance(long code) {
+		if (!retainLayers)
+			throw new IllegalStateException("Distance queries require retained layers.");
+		for (int depth = 0; depth < layers.size(); depth++) {
+			if (Arrays.binarySearch(layers.get(depth), code) >= 0)
+				return depth;
+		}
+		return -1;
+	}
+
+	/**
+	 * Answers distance queries for a whole set of state codes at once.
+	 */
+	public int[] getDistances(long[] codes) {
+		int[] result = new int[codes.length];
+		IntStream indices = IntStream.range(0, codes.length);
+		(parallel ? indices.parallel() : indices).forEach(i -> result[i] = getDistance(codes[i]));
+		return result;
+	}
+
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	private void clear() {
+		layers.clear();
+		layerSizes.clear();
+		metrics.set(METRIC_NODES_EXPANDED, 0L);
+		metrics.set(METRIC_STATES_VISITED, 0L);
+		metrics.set(METRIC_LAYERS, 0);
+		metrics.set(METRIC_MAX_LAYER_SIZE, 0);
+	}
+
+	private void addLayer(long[] layer) {
+		layers.add(layer);
+		layerSizes.add(layer.length);
+		statesVisited.add(layer.length);
+		layerCount.set(layers.size());
+		maxLayerSize.updateMax(layer.length);
+	}
+
+	/**
+	 * Expands all states of the layer. Successors of state i are written to
+	 * slots i * b to i * b + b - 1, unused slots are filled with
+	 * {@link PackedProblem#NO_STATE}.
+	 */
+	private long[] expand(long[] layer) {
+		int b = problem.getMaxBranchingFactor();
+		if ((long) layer.length * b > Integer.MAX_VALUE - 8)
+			throw new IllegalStateException("Layer of size " + layer.length + " is too large to be expanded.");
+		long[] result = new long[layer.length * b];
+		IntStream indices = IntStream.range(0, layer.length);
+		(parallel ? indices.parallel() : indices).forEach(i -> {
+			for (int move = 0; move < b; move++)
+				result[i * b + move] = problem.applyMove(layer[i], move);
+		});
+		nodesExpanded.add(layer.length);
+		return result;
+	}
+
+	/**
+	 * Compacts the sorted array in place, dropping repeated codes,
+	 * {@link PackedProblem#NO_STATE}, and codes contained in one of the two
+	 * sorted layers.
+	 */
+	private static long[] removeDuplicates(long[] sorted, long[] layer1, long[] layer2) {
+		int size = 0;
+		int i1 = 0;
+		int i2 = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			long code = sorted[i];
+			if (code == PackedProblem.NO_STATE || size > 0 && sorted[size - 1] == code)
+				continue;
+			while (i1 < layer1.length && layer1[i1] < code)
+				i1++;
+			while (i2 < layer2.length && layer2[i2] < code)
+				i2++;
+			if ((i1 == layer1.length || layer1[i1] != code) && (i2 == layer2.length || layer2[i2] != code))
+				sorted[size++] = code;
+		}
+		return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+	}
+}
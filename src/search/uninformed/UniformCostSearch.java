@@ -2,6 +2,7 @@ package search.uninformed;
 
 import java.util.Comparator;
 
+import search.framework.BucketQueue;
 import search.framework.Node;
 import search.framework.QueueBasedSearch;
 import search.framework.QueueFactory;
@@ -58,4 +59,21 @@ public class UniformCostSearch<S, A> extends QueueBasedSearch<S, A> {
 	public UniformCostSearch(QueueSearch<S, A> impl) {
 		super(impl, QueueFactory.createPriorityQueue(Comparator.comparing(Node::getPathCost)));
 	}
+
+	/**
+	 * Combines UniformCostSearch with an indexed heap frontier of the
+	 * specified arity, which speeds up
+	 * {@link search.framework.qsearch.GraphSearchReducedFrontier}.
+	 */
+	public UniformCostSearch(QueueSearch<S, A> impl, int heapArity) {
+		super(impl, QueueFactory.createIndexedPriorityQueue(heapArity, Comparator.comparing(Node::getPathCost)));
+	}
+
+	/**
+	 * Combines UniformCostSearch with a bucket queue frontier. Step costs must
+	 * be non-negative integers.
+	 */
+	public UniformCostSearch(QueueSearch<S, A> impl, BucketQueue.TieBreaking tieBreaking) {
+		super(impl, QueueFactory.createBucketQueue(Node::getPathCost, tieBreaking));
+	}
 }
\ No newline at end of file